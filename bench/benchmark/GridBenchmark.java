@@ -0,0 +1,137 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+
+import application.GridHarness;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+import model.CellState;
+
+/**
+ * Frame-time benchmark for the grids of the application, which (unlike the
+ * models, see {@link LifeBenchmark}) need the FX toolkit. The grids are
+ * package-private, so they are driven through {@link GridHarness}.
+ * <p>
+ * For each grid type and cell size, this measures a full frame (a
+ * {@code redraw()} of the viewport) and a step frame (10% of the visible cells
+ * changing, followed by a {@code flush()}). Each frame includes a snapshot of
+ * the canvas, which forces the queued drawing commands to actually be
+ * rendered. The world is a random soup, a quarter of it alive.
+ * <p>
+ * Build it like {@link LifeBenchmark}, then run it with (e.g.):
+ *
+ * <pre>
+ * java -p lib:bin:bench-bin:$JAVAFX/lib -m lifeapp.benchmark/benchmark.GridBenchmark [grids [cell sizes [frames]]]
+ *
+ *   grids        classic, hex or both (default: both)
+ *   cell sizes   comma-separated (default: 8,16,32)
+ *   frames       frames measured per operation, after as many warm-up frames (default: 20)
+ * </pre>
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class GridBenchmark {
+	private static final int NROWS = 400;
+	private static final int NCOLS = 500;
+	private static final int VIEWPORT_WIDTH = 1200;
+	private static final int VIEWPORT_HEIGHT = 800;
+
+	private final Canvas canvas = new Canvas();
+	private final Canvas overlay = new Canvas();
+	private final Pane worldPane = new Pane(canvas, overlay);
+	private final ScrollPane container = new ScrollPane(worldPane);
+	private final StackPane root = new StackPane(container);
+	private final Random random = new Random(42);
+
+	public static void main(String[] args) throws Exception {
+		var grids = args.length > 0 && !args[0].equals("both") ? new String[] { args[0] }
+		    : new String[] { "classic", "hex" };
+		var cellSizes = (args.length > 1 ? args[1] : "8,16,32").split(",");
+		int frames = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		var started = new CountDownLatch(1);
+		Platform.startup(started::countDown);
+		started.await();
+
+		System.out.printf("%-8s %9s %5s  %14s %14s%n", "grid", "size", "cell", "redraw ms", "step ms");
+
+		for (var grid : grids) {
+			for (var cellSize : cellSizes) {
+				var task = new FutureTask<>(
+				    () -> new GridBenchmark().run(grid, Integer.parseInt(cellSize), frames));
+				Platform.runLater(task);
+				System.out.println(task.get());
+			}
+		}
+
+		Platform.exit();
+	}
+
+	private GridBenchmark() {
+		new Scene(root, VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+		overlay.setMouseTransparent(true);
+		overlay.widthProperty().bind(canvas.widthProperty());
+		overlay.heightProperty().bind(canvas.heightProperty());
+	}
+
+	private String run(String kind, int cellSize, int frames) {
+		var grid = new GridHarness(kind.equals("hex"), canvas, overlay, container);
+		grid.setSize(NROWS, NCOLS, cellSize);
+
+		for (int r = 0; r < NROWS; r++)
+			for (int c = 0; c < NCOLS; c++)
+				if (random.nextInt(4) == 0)
+					grid.set(r, c, CellState.ALIVE);
+
+		worldPane.setPrefSize(grid.worldWidth(), grid.worldHeight());
+		container.setHvalue(0.5);
+		container.setVvalue(0.5);
+		root.applyCss();
+		root.layout();
+		grid.updateViewport();
+
+		double redraw = measure(frames, () -> grid.redraw());
+		double step = measure(frames, () -> {
+			for (int r = grid.firstVisibleRow(); r < grid.lastVisibleRow(); r++) {
+				for (int c = grid.firstVisibleCol(); c < grid.lastVisibleCol(); c++) {
+					if (random.nextInt(10) == 0) {
+						var state = grid.get(r, c) == CellState.DEAD ? CellState.ALIVE : CellState.DEAD;
+						grid.set(r, c, state);
+						grid.setDisplayCell(r, c, state);
+					}
+				}
+			}
+			grid.flush();
+		});
+
+		return "%-8s %9s %5d  %,14.2f %,14.2f".formatted(kind, NROWS + "x" + NCOLS, cellSize, redraw,
+		    step);
+	}
+
+	/**
+	 * Renders some warm-up frames, then returns the average time of a frame in
+	 * milliseconds.
+	 */
+	private double measure(int frames, Runnable draw) {
+		for (int i = 0; i < frames; i++) {
+			draw.run();
+			canvas.snapshot(null, null);
+		}
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < frames; i++) {
+			draw.run();
+			canvas.snapshot(null, null);
+		}
+
+		return (System.nanoTime() - start) / 1e6 / frames;
+	}
+}
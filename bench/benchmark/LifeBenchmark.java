@@ -0,0 +1,535 @@
+package benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import model.CellState;
+import model.ChangeSet;
+import model.ILife;
+
+/**
+ * A hand-written benchmark harness for every {@link ILife} implementation, so
+ * that the models can be compared with each other (and with their previous
+ * versions) on equal terms.
+ * <p>
+ * For every model, world size and fill fraction, this measures
+ * {@code resize()}, {@code forAllLife()}, {@code populationCount()},
+ * {@code step()} (with a no-op callback, with a counting callback, with a
+ * change set that is then drained, and in parallel for the models that support
+ * it) and {@code randomize()}. Each operation is warmed up first and then
+ * repeated for a fixed amount of time. Besides the time per operation, the
+ * bytes allocated per operation (by the benchmark thread, as reported by
+ * {@code com.sun.management.ThreadMXBean}) and the number of garbage
+ * collections / time spent collecting during the measurement (from the
+ * {@link GarbageCollectorMXBean}s) are reported. Steps are measured in
+ * batches of {@value #BATCH}, and the world is seeded again (untimed) before
+ * each batch, so that they are measured on a world that keeps changing rather
+ * than on one that has settled during the warm-up.
+ * <p>
+ * A second table measures {@code step()} on a small soup left to settle in an
+ * otherwise empty world, which shows how the cost of a step scales with the
+ * area of the world when only a small part of it is active.
+ * <p>
+ * A third table measures {@code AmoebaLife.step()} with a growing number of
+ * nuclei (and as many food cells), which shows whether the cost of a step
+ * grows with the number of nuclei or only with the area of the world.
+ * <p>
+ * A fourth table compares {@code RuleLife.step()} with its 3x3 pattern lookup
+ * (the default) against the implementations of B3/S23 that count neighbors,
+ * including {@code RuleLife} itself with the lookup disabled.
+ * <p>
+ * This is not JMH: every measurement runs in the same JVM, one after the other,
+ * with no forking and no protection against dead-code elimination besides
+ * consuming the results. The numbers are meant for comparing models (or
+ * versions of a model) measured in the same run, on the same machine, rather
+ * than as absolute figures.
+ * <p>
+ * The benchmark is a module of its own ({@code lifeapp.benchmark}, in the
+ * {@code bench} source folder), so that the application does not depend on the
+ * management APIs used to count allocations. It is not part of the Eclipse
+ * project (which can only hold one module), so it is built by hand, against the
+ * compiled application ({@code bin}, e.g., the Eclipse output folder) and the
+ * JavaFX SDK that the application requires ({@code $JAVAFX}):
+ *
+ * <pre>
+ * javac -p lib:bin:$JAVAFX/lib -d bench-bin $(find bench -name "*.java")
+ * java -p lib:bin:bench-bin:$JAVAFX/lib -m lifeapp.benchmark/benchmark.LifeBenchmark [options]
+ *
+ *   --models SimpleLife,GraphLife   models to run (default: all)
+ *   --sizes 64x64,400x500           world sizes (default: 64x64,400x500,2048x2048,8192x8192)
+ *   --fills 0.5,0.05                fraction of cells seeded by randomize() (default: 1,0.1)
+ *   --time 500                      milliseconds spent measuring each operation (default: 500)
+ * </pre>
+ *
+ * Once an operation of a model takes longer than a few seconds, or the world
+ * does not fit in memory, the larger sizes of that model are skipped.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class LifeBenchmark {
+	/** Operations slower than this are not run on larger worlds */
+	private static final long SLOW_NANOS = 5_000_000_000L;
+
+	/** Number of steps measured between two seedings of the world */
+	private static final int BATCH = 32;
+
+	/** Keeps results alive, so that the JIT can't optimize the work away */
+	private static volatile long sink;
+
+	private static final LinkedHashMap<String, Supplier<ILife>> MODELS = new LinkedHashMap<>();
+
+	static {
+		MODELS.put("GraphLife", model.GraphLife::new);
+		MODELS.put("RuleLife", model.RuleLife::new);
+		MODELS.put("SimpleLife", model.SimpleLife::new);
+		MODELS.put("BitLife", model.BitLife::new);
+		MODELS.put("HashLife", model.HashLife::new);
+		MODELS.put("SparseLife", model.SparseLife::new);
+		MODELS.put("SparseLife-unbounded", () -> new model.SparseLife(false));
+		MODELS.put("KnightLife", model.KnightLife::new);
+		MODELS.put("HexLife", model.HexLife::new);
+		MODELS.put("LifeInColor", model.LifeInColor::new);
+		MODELS.put("RockPaperScissorLife", model.RockPaperScissorLife::new);
+		MODELS.put("VampireLife", model.VampireLife::new);
+		MODELS.put("ZombieLife", model.ZombieLife::new);
+		MODELS.put("AmoebaLife", model.AmoebaLife::new);
+	}
+
+	/**
+	 * A callback that does nothing.
+	 */
+	private static final ILife.Callback NO_OP = (row, col, state) -> {
+	};
+
+	/**
+	 * A callback that counts (and touches) every cell it is given.
+	 */
+	private static final class Counter implements ILife.Callback {
+		long count;
+
+		@Override
+		public void invoke(int row, int col, CellState state) {
+			count += row + col + state.ordinal() + 1;
+		}
+	}
+
+	private final List<String> models = new ArrayList<>(MODELS.keySet());
+	private final List<int[]> sizes = new ArrayList<>(
+	    List.of(new int[] { 64, 64 }, new int[] { 400, 500 }, new int[] { 2048, 2048 },
+	        new int[] { 8192, 8192 }));
+	private final List<Double> fills = new ArrayList<>(List.of(1.0, 0.1));
+	private long measureNanos = 500_000_000L;
+
+	private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+	    .getThreadMXBean();
+	private final List<GarbageCollectorMXBean> collectors = ManagementFactory
+	    .getGarbageCollectorMXBeans();
+
+	public static void main(String[] args) {
+		var benchmark = new LifeBenchmark();
+
+		try {
+			benchmark.parseArguments(args);
+		}
+		catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+
+		benchmark.runOperations();
+		benchmark.runSettledSoup();
+		benchmark.runAmoebaNuclei();
+		benchmark.runPatternLookup();
+	}
+
+	private void parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value for " + args[i]);
+
+			String option = args[i];
+			String value = args[++i];
+
+			switch (option) {
+				case "--models":
+					models.clear();
+					for (var name : value.split(",")) {
+						if (!MODELS.containsKey(name))
+							throw new IllegalArgumentException("Unknown model: " + name);
+						models.add(name);
+					}
+					break;
+				case "--sizes":
+					sizes.clear();
+					for (var size : value.split(",")) {
+						var parts = size.split("x");
+						if (parts.length != 2)
+							throw new IllegalArgumentException("Invalid size: " + size);
+						sizes.add(new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) });
+					}
+					break;
+				case "--fills":
+					fills.clear();
+					for (var fill : value.split(","))
+						fills.add(Double.parseDouble(fill));
+					break;
+				case "--time":
+					measureNanos = Long.parseLong(value) * 1_000_000L;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option: " + option);
+			}
+		}
+	}
+
+	private static ILife newModel(String name) {
+		return MODELS.get(name).get();
+	}
+
+	/**
+	 * Seeds the world with randomize(), then kills cells until only the given
+	 * fraction of them is left in their random state.
+	 */
+	private static void seed(ILife model, int nrows, int ncols, double fill) {
+		ILife.RANDOM.setSeed(42);
+		model.randomize();
+
+		if (fill < 1) {
+			var random = new Random(42);
+
+			for (int r = 0; r < nrows; r++)
+				for (int c = 0; c < ncols; c++)
+					if (random.nextDouble() >= fill)
+						model.set(r, c, CellState.DEAD);
+		}
+	}
+
+	/**
+	 * Results of measuring one operation.
+	 */
+	private record Result(long ops, long nanos, long bytes, long gcCount, long gcMillis) {
+		long nanosPerOp() {
+			return nanos / ops;
+		}
+
+		long bytesPerOp() {
+			return bytes / ops;
+		}
+	}
+
+	private long gcCount() {
+		long count = 0;
+		for (var collector : collectors)
+			count += Math.max(0, collector.getCollectionCount());
+		return count;
+	}
+
+	private long gcMillis() {
+		long millis = 0;
+		for (var collector : collectors)
+			millis += Math.max(0, collector.getCollectionTime());
+		return millis;
+	}
+
+	/**
+	 * Runs an operation repeatedly: first for a warm-up period, then for the
+	 * measurement period (at least once each).
+	 */
+	private Result measure(Runnable operation) {
+		return measure(null, operation);
+	}
+
+	/**
+	 * Runs an operation repeatedly in batches of {@link #BATCH}: first for a
+	 * warm-up period, then for the measurement period (at least once each). The
+	 * setup (if not {@code null}) is run before every batch, and neither its time
+	 * nor its allocations are counted.
+	 */
+	private Result measure(Runnable setup, Runnable operation) {
+		int batchSize = setup == null ? Integer.MAX_VALUE : BATCH;
+
+		long warmupEnd = System.nanoTime() + measureNanos / 2;
+		do {
+			if (setup != null)
+				setup.run();
+
+			int i = 0;
+			do
+				operation.run();
+			while (++i < batchSize && System.nanoTime() < warmupEnd);
+		} while (System.nanoTime() < warmupEnd);
+
+		long gcCount = gcCount();
+		long gcMillis = gcMillis();
+		long bytes = 0;
+		long nanos = 0;
+		long ops = 0;
+
+		do {
+			if (setup != null)
+				setup.run();
+
+			long allocated = threads.getCurrentThreadAllocatedBytes();
+			long start = System.nanoTime();
+			long now;
+			int i = 0;
+
+			do {
+				operation.run();
+				ops++;
+				now = System.nanoTime();
+			} while (++i < batchSize && nanos + now - start < measureNanos);
+
+			nanos += now - start;
+			bytes += threads.getCurrentThreadAllocatedBytes() - allocated;
+		} while (nanos < measureNanos);
+
+		return new Result(ops, nanos, bytes, gcCount() - gcCount, gcMillis() - gcMillis);
+	}
+
+	private static void printHeader(String title) {
+		System.out.println();
+		System.out.println(title);
+		System.out.printf("%-22s %11s %5s  %-18s %15s %15s %6s %8s%n", "model", "size", "fill",
+		    "operation", "ns/op", "bytes/op", "gc", "gc ms");
+	}
+
+	private static void print(String name, int[] size, String fill, String operation,
+	    Result result) {
+		System.out.printf("%-22s %11s %5s  %-18s %,15d %,15d %6d %8d%n", name,
+		    size[0] + "x" + size[1], fill, operation, result.nanosPerOp(), result.bytesPerOp(),
+		    result.gcCount(), result.gcMillis());
+	}
+
+	private void runOperations() {
+		printHeader("Operations");
+
+		for (var name : models) {
+			for (var size : sizes) {
+				if (!runOperations(name, size))
+					break;
+			}
+		}
+	}
+
+	/**
+	 * @return {@code false} if larger sizes should be skipped for this model.
+	 */
+	private boolean runOperations(String name, int[] size) {
+		int nrows = size[0];
+		int ncols = size[1];
+
+		try {
+			var model = newModel(name);
+			model.resize(nrows, ncols);
+
+			var resize = measure(() -> model.resize(nrows, ncols));
+			print(name, size, "", "resize()", resize);
+			boolean fast = resize.nanosPerOp() < SLOW_NANOS;
+
+			for (double fill : fills) {
+				String label = String.valueOf(fill);
+				seed(model, nrows, ncols, fill);
+
+				var forAllLife = measure(() -> {
+					var counter = new Counter();
+					model.forAllLife(counter);
+					sink += counter.count;
+				});
+				print(name, size, label, "forAllLife()", forAllLife);
+
+				var populationCount = measure(() -> sink += model.populationCount());
+				print(name, size, label, "populationCount()", populationCount);
+
+				// Every batch of steps starts from the same world.
+				Runnable reseed = () -> seed(model, nrows, ncols, fill);
+
+				var noOp = measure(reseed, () -> model.step(NO_OP));
+				print(name, size, label, "step(no-op)", noOp);
+
+				var counter = new Counter();
+				var counting = measure(reseed, () -> model.step(counter));
+				sink += counter.count;
+				print(name, size, label, "step(counting)", counting);
+
+				var changes = new ChangeSet();
+				var batched = measure(reseed, () -> {
+					model.step(changes);
+					changes.forEach(counter);
+				});
+				sink += counter.count;
+				print(name, size, label, "step(change set)", batched);
+
+				fast &= noOp.nanosPerOp() < SLOW_NANOS && counting.nanosPerOp() < SLOW_NANOS
+				    && batched.nanosPerOp() < SLOW_NANOS;
+
+				if (model.supportsParallel()) {
+					model.setParallel(true);
+					var parallel = measure(reseed, () -> model.step(NO_OP));
+					model.setParallel(false);
+					print(name, size, label, "step(parallel)", parallel);
+
+					fast &= parallel.nanosPerOp() < SLOW_NANOS;
+				}
+			}
+
+			var randomize = measure(model::randomize);
+			print(name, size, "", "randomize()", randomize);
+
+			return fast && randomize.nanosPerOp() < SLOW_NANOS;
+		}
+		catch (OutOfMemoryError e) {
+			System.out.printf("%-22s %11s  skipped (out of memory)%n", name, nrows + "x" + ncols);
+			return false;
+		}
+	}
+
+	/**
+	 * Measures step() on a 64x64 random soup in the corner of an otherwise empty
+	 * world, after letting it settle for a while.
+	 */
+	private void runSettledSoup() {
+		printHeader("Settled 64x64 soup");
+
+		for (var name : models) {
+			for (var size : sizes) {
+				int nrows = size[0];
+				int ncols = size[1];
+
+				try {
+					var model = newModel(name);
+					model.resize(nrows, ncols);
+
+					var random = new Random(42);
+					for (int r = 0; r < Math.min(64, nrows); r++)
+						for (int c = 0; c < Math.min(64, ncols); c++)
+							if (random.nextBoolean())
+								model.set(r, c, CellState.ALIVE);
+
+					long start = System.nanoTime();
+					for (int i = 0; i < 1000 && System.nanoTime() - start < SLOW_NANOS; i++)
+						model.step(NO_OP);
+
+					var step = measure(() -> model.step(NO_OP));
+					print(name, size, "", "step(no-op)", step);
+
+					if (step.nanosPerOp() >= SLOW_NANOS)
+						break;
+				}
+				catch (OutOfMemoryError e) {
+					System.out.printf("%-22s %11s  skipped (out of memory)%n", name, nrows + "x" + ncols);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Measures AmoebaLife's step() on worlds seeded with only nuclei and food, in
+	 * growing numbers. The nuclei then grow, eat, split and die during each batch
+	 * of steps, so the number of nuclei is only a starting point.
+	 */
+	private void runAmoebaNuclei() {
+		if (!models.contains("AmoebaLife"))
+			return;
+
+		printHeader("AmoebaLife by initial number of nuclei (and food)");
+
+		for (var size : sizes) {
+			int nrows = size[0];
+			int ncols = size[1];
+			boolean fast = true;
+
+			for (int nuclei = 4; nuclei <= 256 && fast; nuclei *= 4) {
+				try {
+					var model = newModel("AmoebaLife");
+					model.resize(nrows, ncols);
+
+					int count = nuclei;
+					Runnable reseed = () -> {
+						model.clear();
+
+						var random = new Random(42);
+						for (int i = 0; i < count; i++) {
+							model.set(random.nextInt(nrows), random.nextInt(ncols), CellState.RED); // nucleus
+							model.set(random.nextInt(nrows), random.nextInt(ncols), CellState.BLUE); // food
+						}
+					};
+
+					var step = measure(reseed, () -> model.step(NO_OP));
+					print("AmoebaLife", size, String.valueOf(nuclei), "step(no-op)", step);
+					fast = step.nanosPerOp() < SLOW_NANOS;
+				}
+				catch (OutOfMemoryError e) {
+					System.out.printf("%-22s %11s  skipped (out of memory)%n", "AmoebaLife",
+					    nrows + "x" + ncols);
+					return;
+				}
+			}
+
+			if (!fast)
+				break;
+		}
+	}
+
+	/**
+	 * Measures step() of RuleLife with the 3x3 pattern lookup (see
+	 * {@link model.RuleLife#setPatternLookup}), next to the models that count
+	 * the neighbors of every cell (and RuleLife without the lookup), on the same
+	 * worlds as the operations table.
+	 */
+	private void runPatternLookup() {
+		if (!models.contains("RuleLife"))
+			return;
+
+		printHeader("Counting vs. 3x3 pattern lookup (B3/S23)");
+
+		var names = new ArrayList<String>();
+		for (var name : List.of("SimpleLife", "GraphLife"))
+			if (models.contains(name))
+				names.add(name);
+		names.add("RuleLife (counting)");
+		names.add("RuleLife");
+
+		for (var size : sizes) {
+			int nrows = size[0];
+			int ncols = size[1];
+			boolean fast = true;
+
+			for (var name : names) {
+				try {
+					ILife model;
+					if (name.equals("RuleLife (counting)")) {
+						var ruleLife = new model.RuleLife();
+						ruleLife.setPatternLookup(false);
+						model = ruleLife;
+					}
+					else
+						model = newModel(name);
+
+					model.resize(nrows, ncols);
+
+					for (double fill : fills) {
+						var step = measure(() -> seed(model, nrows, ncols, fill),
+						    () -> model.step(NO_OP));
+						print(name, size, String.valueOf(fill), "step(no-op)", step);
+						fast &= step.nanosPerOp() < SLOW_NANOS;
+					}
+				}
+				catch (OutOfMemoryError e) {
+					System.out.printf("%-22s %11s  skipped (out of memory)%n", name, nrows + "x" + ncols);
+					fast = false;
+				}
+			}
+
+			if (!fast)
+				break;
+		}
+	}
+}
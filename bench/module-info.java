@@ -0,0 +1,9 @@
+/**
+ * The model and grid benchmarks, kept out of the application module so that it
+ * does not need the management APIs used to count allocations, nor any
+ * benchmark entry points.
+ */
+module lifeapp.benchmark {
+	requires lifeapp;
+	requires jdk.management;
+}
@@ -0,0 +1,86 @@
+package application;
+
+import model.LongIntHashMap;
+
+/**
+ * Detects when the world repeats itself (e.g., a soup that settled into
+ * blinkers), by looking up the hash of each generation (see
+ * {@link Frame#hash()}) among the hashes of the previous ones.
+ * <p>
+ * The hashes are kept in a ring, along with the step at which they were
+ * observed, and mapped to their position in the ring (without boxing, as this
+ * runs every generation). Only the most recent {@link #WINDOW} hashes are kept,
+ * so longer periods go unnoticed. Fixed points (period 1) are left to the stall
+ * detection.
+ * <p>
+ * Confined to the simulation worker thread.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class CycleDetector {
+	/** Number of recent hashes kept */
+	static final int WINDOW = 4096;
+
+	private final LongIntHashMap positions = new LongIntHashMap(WINDOW); // hash -> position in the ring + 1
+	private final long[] window = new long[WINDOW]; // ring of the hashes in the map, oldest first
+	private final long[] steps = new long[WINDOW]; // step at which each hash of the ring was observed
+	private int oldest;
+	private int count;
+
+	private long lastStep = -1; // last step observed
+	private long firstConsecutive; // every step since this one was observed
+
+	/**
+	 * Forgets all the hashes (e.g., when the world is edited).
+	 */
+	void reset() {
+		positions.clear();
+		oldest = 0;
+		count = 0;
+		lastStep = -1;
+		firstConsecutive = 0; // in case the next step observed is 0
+	}
+
+	/**
+	 * Records the hash of the world at the given step.
+	 *
+	 * @return the step at which the same hash was observed before, or -1 if it
+	 *         wasn't.
+	 */
+	long observe(long hash, long step) {
+		if (step != lastStep + 1)
+			firstConsecutive = step;
+
+		lastStep = step;
+
+		int previous = positions.get(hash);
+		if (previous != 0)
+			return steps[previous - 1];
+
+		int position;
+		if (count == WINDOW) {
+			positions.remove(window[oldest]);
+			position = oldest;
+			oldest = (oldest + 1) % WINDOW;
+		}
+		else {
+			position = (oldest + count) % WINDOW;
+			count++;
+		}
+
+		window[position] = hash;
+		steps[position] = step;
+		positions.put(hash, position + 1);
+		return -1;
+	}
+
+	/**
+	 * Whether every step since the given one was observed. If not, the period
+	 * between two observations of the same hash may be a multiple of the actual
+	 * period.
+	 */
+	boolean observedSince(long step) {
+		return step >= firstConsecutive;
+	}
+}
@@ -0,0 +1,245 @@
+package application;
+
+import java.util.Arrays;
+
+import model.CellState;
+import model.ChangeSet;
+import model.ILife;
+
+/**
+ * A snapshot of the world (one completed generation), as handed from the
+ * {@link SimulationWorker} to the FX thread.
+ * <p>
+ * Frames are plain mutable buffers that get reused; they are only ever
+ * accessed by one thread at a time. Each cell is stored as the ordinal of its
+ * state (one byte per cell).
+ * <p>
+ * Copies only transfer the rows that changed: every row carries a version,
+ * which the frame that the copies are made from (the worker's mirror) assigns
+ * to the rows modified since its last {@link #stampRows()}. Two frames whose
+ * rows have the same version hold the same cells in them, so a copy only costs
+ * as much as the changes since the previous copy (plus a check per row). Rows
+ * modified in any other frame (e.g., by an edit on the FX thread) are marked
+ * as {@link #MODIFIED}, and are always copied.
+ * <p>
+ * Frames also maintain a Zobrist hash of their cells: every (cell, state) pair
+ * has a pseudo-random 64-bit key, and the hash is the XOR of the keys of the
+ * non-dead cells. Setting a cell updates it in constant time, so comparing two
+ * generations (e.g., for detecting cycles) costs next to nothing.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class Frame {
+	private static final CellState[] STATES = CellState.values();
+	private static final byte DEAD = (byte) CellState.DEAD.ordinal();
+
+	/** Version of a row that was modified since it was last stamped or copied */
+	private static final long MODIFIED = -1;
+
+	int nrows;
+	int ncols;
+	private byte[] cells = new byte[0]; // row-major state ordinals
+	private long[] rowVersions = new long[0];
+	private long version; // last version given by stampRows()
+	private long hash;
+
+	/** Number of steps (that changed the world) since the last reset */
+	long stepCount;
+
+	/** Total number of steps run by the worker (never reset) */
+	long generation;
+
+	/** Whether the last step did not change the world */
+	boolean stalled;
+
+	/** Position of this frame in the history, and range of the history */
+	long historyCursor;
+	long historyFirst;
+	long historyEnd;
+
+	/**
+	 * Period of the cycle the world is in (0 if none was detected), and the step
+	 * count at which it was first seen
+	 */
+	long cyclePeriod;
+	long cycleStart;
+
+	/**
+	 * Re-instantiates the frame with new dimensions (all cells dead).
+	 */
+	void resize(int nrows, int ncols) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+
+		if (cells.length != nrows * ncols)
+			cells = new byte[nrows * ncols];
+		if (rowVersions.length != nrows)
+			rowVersions = new long[nrows];
+
+		clear();
+	}
+
+	void clear() {
+		Arrays.fill(cells, DEAD);
+		Arrays.fill(rowVersions, MODIFIED);
+		hash = 0;
+	}
+
+	/**
+	 * Queries the state of a cell. Cells outside of the frame are dead (the grid
+	 * may already have been resized while the frame of the new size is still
+	 * being computed).
+	 */
+	CellState get(int row, int col) {
+		if (row < 0 || row >= nrows || col < 0 || col >= ncols)
+			return CellState.DEAD;
+
+		return STATES[cells[row * ncols + col]];
+	}
+
+	void set(int row, int col, CellState state) {
+		int i = row * ncols + col;
+		byte ordinal = (byte) state.ordinal();
+		hash ^= key(i, cells[i]) ^ key(i, ordinal);
+		cells[i] = ordinal;
+		rowVersions[row] = MODIFIED;
+	}
+
+	/**
+	 * Gives the rows modified since the last call a new version, so that copies
+	 * of this frame can tell which rows changed since they were made.
+	 */
+	void stampRows() {
+		version++;
+
+		for (int r = 0; r < nrows; r++)
+			if (rowVersions[r] == MODIFIED)
+				rowVersions[r] = version;
+	}
+
+	/**
+	 * @return whether a row must be copied from another frame of the same
+	 *         dimensions.
+	 */
+	private boolean rowDiffers(Frame other, int row) {
+		return rowVersions[row] != other.rowVersions[row] || rowVersions[row] == MODIFIED;
+	}
+
+	/**
+	 * @return the hash of the cells (equal frames have equal hashes).
+	 */
+	long hash() {
+		return hash;
+	}
+
+	/**
+	 * Key of a cell in a given state, for the hash. Rather than tables of random
+	 * keys (as big as the world, times the number of states), the keys are derived
+	 * from the cell index and state with the SplitMix64 finalizer.
+	 */
+	private static long key(int index, byte state) {
+		if (state == DEAD)
+			return 0;
+
+		long z = (index * 8L + state) * 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Execute an action for all non-dead cells.
+	 */
+	void forAllLife(ILife.Callback action) {
+		for (int i = 0; i < cells.length; i++)
+			if (cells[i] != DEAD)
+				action.invoke(i / ncols, i % ncols, STATES[cells[i]]);
+	}
+
+	/**
+	 * Makes this frame an exact copy of another, copying only the rows that
+	 * differ.
+	 */
+	void copyFrom(Frame other) {
+		if (nrows != other.nrows || ncols != other.ncols) {
+			if (cells.length != other.cells.length)
+				cells = new byte[other.cells.length];
+			if (rowVersions.length != other.rowVersions.length)
+				rowVersions = new long[other.rowVersions.length];
+
+			nrows = other.nrows;
+			ncols = other.ncols;
+			Arrays.fill(rowVersions, MODIFIED);
+		}
+
+		for (int r = 0; r < nrows; r++) {
+			if (rowDiffers(other, r)) {
+				System.arraycopy(other.cells, r * ncols, cells, r * ncols, ncols);
+				rowVersions[r] = other.rowVersions[r];
+			}
+		}
+
+		hash = other.hash;
+		copyCountersFrom(other);
+	}
+
+	private void copyCountersFrom(Frame other) {
+		stepCount = other.stepCount;
+		generation = other.generation;
+		stalled = other.stalled;
+		historyCursor = other.historyCursor;
+		historyFirst = other.historyFirst;
+		historyEnd = other.historyEnd;
+		cyclePeriod = other.cyclePeriod;
+		cycleStart = other.cycleStart;
+	}
+
+	/**
+	 * Makes this frame a copy of a newer one, collecting the cells that differ
+	 * between the two within the given rows (e.g., the visible ones), in
+	 * row-major order. The other rows are copied without comparing them, and rows
+	 * that did not change are skipped altogether.
+	 *
+	 * @param firstRow first row to compare (inclusive)
+	 * @param lastRow  last row to compare (exclusive)
+	 * @param changes  cleared, then filled with the cells that differ
+	 * @return {@code false} if the frames have different dimensions, in which
+	 *         case the frame is copied without collecting any changes.
+	 */
+	boolean updateFrom(Frame other, int firstRow, int lastRow, ChangeSet changes) {
+		changes.clear();
+
+		if (nrows != other.nrows || ncols != other.ncols) {
+			copyFrom(other);
+			return false;
+		}
+
+		firstRow = Math.clamp(firstRow, 0, nrows);
+		lastRow = Math.clamp(lastRow, firstRow, nrows);
+
+		for (int r = 0; r < nrows; r++) {
+			if (!rowDiffers(other, r))
+				continue;
+
+			int begin = r * ncols;
+
+			if (r < firstRow || r >= lastRow)
+				System.arraycopy(other.cells, begin, cells, begin, ncols);
+			else {
+				for (int i = begin; i < begin + ncols; i++) {
+					if (cells[i] != other.cells[i]) {
+						cells[i] = other.cells[i];
+						changes.add(r, i - begin, STATES[cells[i]]);
+					}
+				}
+			}
+
+			rowVersions[r] = other.rowVersions[r];
+		}
+
+		hash = other.hash;
+		copyCountersFrom(other);
+		return true;
+	}
+}
@@ -1,19 +1,35 @@
 package application;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.geometry.Bounds;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.Paint;
 import model.CellState;
+import model.ChangeSet;
 import model.ILife;
 
 /**
  * Abstract base class for rectangular grids.
  * <p>
- * This class is a just a thin wrapper over the controller's canvas. It handles
- * the visual display of the data in the controller's model.
+ * This class is a just a thin wrapper over the controller's canvas (and the
+ * overlay canvas stacked on top of it). It handles the visual display of the
+ * data in the controller's model.
+ * <p>
+ * The canvases only ever cover the part of the world that is visible in the
+ * scroll pane (the viewport). They are moved around the (otherwise empty)
+ * world pane as it scrolls, and only the cells that intersect the viewport are
+ * drawn. When the cells get smaller than a few pixels, the grid switches to a
+ * density view, where each pixel shows the average color of a block of cells
+ * (see {@link Raster}).
  * <p>
  * Originally, all of this code was in the controller, but for ease of switching
  * between grid types, it was moved out. It is still heavily tied to the
@@ -29,6 +45,8 @@ abstract class Grid {
 	final ScrollPane container;
 	final Canvas canvas;
 	final GraphicsContext graphics;
+	final Canvas overlay; // for anything that doesn't change on each step
+	final GraphicsContext overlayGraphics;
 
 	Color primaryColor = Color.BLACK;
 	static final Color TILE_BORDER_COLOR = Color.rgb(87, 111, 141);
@@ -44,11 +62,33 @@ abstract class Grid {
 
 	private boolean modelNeedsResize;
 
-	protected Grid(ViewController masterControl, Canvas canvas, ScrollPane container) {
+	/** Cells smaller than this (in pixels) are shown in the density view */
+	private final int lodCellSize;
+
+	// Top-left corner of the viewport (and of the canvas) in world coordinates
+	protected double viewX;
+	protected double viewY;
+
+	// Visible cells (first inclusive, last exclusive), widened to whole blocks
+	protected int firstRow;
+	protected int lastRow;
+	protected int firstCol;
+	protected int lastCol;
+
+	/** Number of cells per side of a block in the density view (1 if not in use) */
+	protected int block = 1;
+
+	protected final Raster raster = new Raster();
+
+	protected Grid(ViewController masterControl, Canvas canvas, Canvas overlay,
+	    ScrollPane container, int lodCellSize) {
 		this.masterControl = masterControl;
+		this.lodCellSize = lodCellSize;
 		this.container = container;
 		this.canvas = canvas;
 		this.graphics = canvas.getGraphicsContext2D();
+		this.overlay = overlay;
+		this.overlayGraphics = overlay.getGraphicsContext2D();
 		// Enable click-to-toggle functionality.
 		canvas.setOnMouseClicked(this::toggleDisplayCell);
 	}
@@ -89,7 +129,19 @@ abstract class Grid {
 		resize();
 	}
 
-	abstract protected void resizeCanvas();
+	/** Width of the whole world, in pixels */
+	abstract double worldWidth();
+
+	/** Height of the whole world, in pixels */
+	abstract double worldHeight();
+
+	/**
+	 * Resizes the world pane to fit the whole world. The canvas itself only
+	 * covers the viewport (see {@link #updateViewport()}).
+	 */
+	protected void resizeCanvas() {
+		masterControl.setWorldSize(worldWidth(), worldHeight());
+	}
 
 	final void resize() {
 		resizeCanvas();
@@ -100,15 +152,84 @@ abstract class Grid {
 			modelNeedsResize = false;
 		}
 
+		updateViewport();
+	}
+
+	/**
+	 * Moves the canvas (and overlay) over the part of the world that is visible
+	 * in the container, then redraws it. Called whenever the container scrolls or
+	 * is resized.
+	 */
+	void updateViewport() {
+		Bounds viewport = container.getViewportBounds();
+		double worldWidth = worldWidth();
+		double worldHeight = worldHeight();
+
+		// The canvas may be up to a pixel wider than the viewport due to rounding.
+		double width = Math.min(Math.ceil(viewport.getWidth()) + 1, worldWidth);
+		double height = Math.min(Math.ceil(viewport.getHeight()) + 1, worldHeight);
+
+		// The minimum of the viewport bounds is minus the scroll offset. (It can be
+		// out of date while the world is being resized, hence the clamping.)
+		viewX = Math.clamp(Math.floor(-viewport.getMinX()), 0, Math.max(0, worldWidth - width));
+		viewY = Math.clamp(Math.floor(-viewport.getMinY()), 0, Math.max(0, worldHeight - height));
+
+		canvas.setWidth(width);
+		canvas.setHeight(height);
+		canvas.relocate(viewX, viewY);
+		overlay.relocate(viewX, viewY);
+
+		block = cellSize < lodCellSize ? Math.ceilDiv(lodCellSize, cellSize) : 1;
+		updateVisibleCells(width, height);
+
+		if (block > 1) {
+			firstRow -= firstRow % block;
+			firstCol -= firstCol % block;
+			lastRow = Math.min(Math.ceilDiv(lastRow, block) * block, nrows);
+			lastCol = Math.min(Math.ceilDiv(lastCol, block) * block, ncols);
+		}
+
 		redraw();
 	}
 
+	/**
+	 * Sets the range of visible cells for a canvas of the given size at
+	 * ({@link #viewX}, {@link #viewY}).
+	 */
+	abstract protected void updateVisibleCells(double width, double height);
+
+	/** First visible row (inclusive) */
+	int firstVisibleRow() {
+		return firstRow;
+	}
+
+	/** Last visible row (exclusive) */
+	int lastVisibleRow() {
+		return lastRow;
+	}
+
 	abstract void redraw();
 
 	abstract void toggleDisplayCell(MouseEvent event);
 
 	abstract void setDisplayCell(int row, int col, CellState state);
 
+	/**
+	 * Updates the display of a whole batch of cells (see
+	 * {@link #setDisplayCell}).
+	 */
+	void setDisplayCells(ChangeSet changes) {
+		for (int i = 0; i < changes.size(); i++)
+			setDisplayCell(changes.row(i), changes.col(i), changes.state(i));
+	}
+
+	/**
+	 * Pushes any pending changes from {@link #setDisplayCell} to the screen. Called
+	 * once per frame, after all the changes of the frame.
+	 */
+	void flush() {
+	}
+
 	/**
 	 * Returns a custom color depending on provided CellState.
 	 *
@@ -139,18 +260,219 @@ abstract class Grid {
 		}
 	}
 
+	/**
+	 * Packs a color into a 32-bit ARGB pixel.
+	 */
+	protected static int toArgb(Color color) {
+		int a = (int) Math.round(color.getOpacity() * 255);
+		int r = (int) Math.round(color.getRed() * 255);
+		int g = (int) Math.round(color.getGreen() * 255);
+		int b = (int) Math.round(color.getBlue() * 255);
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * A raster of the visible cells, with one pixel per block of
+	 * {@link Grid#block} x {@link Grid#block} cells. Once per frame, the changed
+	 * part of the raster is written into an image, which is drawn scaled up onto
+	 * the canvas.
+	 * <p>
+	 * With a block size of 1, this is just one pixel per cell. Otherwise, each
+	 * pixel is the average color of the cells in its block, so that a zoomed out
+	 * world shows how dense life is in each area (rather than whichever cell
+	 * happens to be sampled). Blocks are only averaged again on
+	 * {@link #flush()}, however many of their cells changed.
+	 */
+	final class Raster {
+		private static final int WHITE = toArgb(Color.WHITE);
+
+		private double cellWidth; // on screen, in pixels
+		private double cellHeight;
+
+		private int firstBlockRow;
+		private int firstBlockCol;
+		private int blockRows;
+		private int blockCols;
+
+		private WritableImage image; // one pixel per block
+		private int[] pixels; // ARGB, row-major
+		private final int[] palette = new int[CellState.values().length];
+
+		// Blocks to average again on the next flush()
+		private boolean[] stale = new boolean[0];
+		private int[] staleList = new int[0];
+		private int staleCount;
+
+		// Bounds of the blocks changed since the last flush() (empty if top > bottom)
+		private int dirtyTop, dirtyLeft, dirtyBottom = -1, dirtyRight = -1;
+
+		/**
+		 * Rebuilds the raster from the latest frame, for the current visible cells,
+		 * and draws it.
+		 *
+		 * @param cellWidth  horizontal distance between cells on screen
+		 * @param cellHeight vertical distance between cells on screen
+		 */
+		void redraw(double cellWidth, double cellHeight) {
+			this.cellWidth = cellWidth;
+			this.cellHeight = cellHeight;
+
+			firstBlockRow = firstRow / block;
+			firstBlockCol = firstCol / block;
+			blockRows = Math.ceilDiv(lastRow, block) - firstBlockRow;
+			blockCols = Math.ceilDiv(lastCol, block) - firstBlockCol;
+
+			dirtyBottom = -1;
+			staleCount = 0;
+
+			if (blockRows <= 0 || blockCols <= 0) // not laid out yet
+				return;
+
+			if (image == null || image.getWidth() != blockCols || image.getHeight() != blockRows) {
+				image = new WritableImage(blockCols, blockRows);
+				pixels = new int[blockRows * blockCols];
+				stale = new boolean[pixels.length];
+				staleList = new int[pixels.length];
+			}
+			else {
+				Arrays.fill(stale, false);
+			}
+
+			// Fixed shades, so that the averages don't flicker.
+			for (var state : CellState.values())
+				palette[state.ordinal()] = toArgb(decideColor(state));
+
+			for (int i = 0; i < pixels.length; i++)
+				pixels[i] = average(i / blockCols, i % blockCols);
+
+			markDirty(0, 0);
+			markDirty(blockRows - 1, blockCols - 1);
+			flush();
+		}
+
+		/**
+		 * Updates the pixel of a cell. Cells that are not visible are ignored.
+		 */
+		void set(int row, int col, CellState state) {
+			if (row < firstRow || row >= lastRow || col < firstCol || col >= lastCol)
+				return;
+
+			int blockRow = row / block - firstBlockRow;
+			int blockCol = col / block - firstBlockCol;
+			int i = blockRow * blockCols + blockCol;
+
+			if (block == 1)
+				pixels[i] = toArgb(decideColor(state));
+			else if (!stale[i]) {
+				stale[i] = true;
+				staleList[staleCount++] = i;
+			}
+
+			markDirty(blockRow, blockCol);
+		}
+
+		/**
+		 * Computes the average color of the cells in a block (relative to the first
+		 * visible block).
+		 */
+		private int average(int blockRow, int blockCol) {
+			var frame = masterControl.getFrame();
+			int top = (firstBlockRow + blockRow) * block;
+			int left = (firstBlockCol + blockCol) * block;
+
+			if (block == 1) {
+				var state = frame.get(top, left);
+				return state == CellState.DEAD ? WHITE : toArgb(decideColor(state));
+			}
+
+			int bottom = Math.min(top + block, nrows);
+			int right = Math.min(left + block, ncols);
+			int a = 0, r = 0, g = 0, b = 0;
+
+			for (int row = top; row < bottom; row++) {
+				for (int col = left; col < right; col++) {
+					int argb = palette[frame.get(row, col).ordinal()];
+					a += argb >>> 24;
+					r += (argb >> 16) & 0xff;
+					g += (argb >> 8) & 0xff;
+					b += argb & 0xff;
+				}
+			}
+
+			int count = Math.max(1, (bottom - top) * (right - left));
+			return (a / count << 24) | (r / count << 16) | (g / count << 8) | (b / count);
+		}
+
+		private void markDirty(int blockRow, int blockCol) {
+			if (dirtyTop > dirtyBottom) {
+				dirtyTop = dirtyBottom = blockRow;
+				dirtyLeft = dirtyRight = blockCol;
+			}
+			else {
+				dirtyTop = Math.min(dirtyTop, blockRow);
+				dirtyBottom = Math.max(dirtyBottom, blockRow);
+				dirtyLeft = Math.min(dirtyLeft, blockCol);
+				dirtyRight = Math.max(dirtyRight, blockCol);
+			}
+		}
+
+		/**
+		 * Averages the blocks that changed, writes the changed part of the pixel
+		 * buffer into the image and draws it onto the canvas (each pixel being
+		 * scaled up to its block).
+		 */
+		void flush() {
+			for (int k = 0; k < staleCount; k++) {
+				int i = staleList[k];
+				stale[i] = false;
+				pixels[i] = average(i / blockCols, i % blockCols);
+			}
+			staleCount = 0;
+
+			if (dirtyTop > dirtyBottom)
+				return;
+
+			int height = dirtyBottom - dirtyTop + 1;
+			int width = dirtyRight - dirtyLeft + 1;
+
+			image.getPixelWriter().setPixels(dirtyLeft, dirtyTop, width, height,
+			    PixelFormat.getIntArgbInstance(), pixels, dirtyTop * blockCols + dirtyLeft, blockCols);
+
+			double blockWidth = block * cellWidth;
+			double blockHeight = block * cellHeight;
+
+			graphics.setImageSmoothing(false); // keep the cells sharp
+			graphics.drawImage(image, dirtyLeft, dirtyTop, width, height,
+			    (firstBlockCol + dirtyLeft) * blockWidth - viewX,
+			    (firstBlockRow + dirtyTop) * blockHeight - viewY, width * blockWidth,
+			    height * blockHeight);
+
+			dirtyTop = 0;
+			dirtyBottom = -1;
+		}
+	}
+
 	/**
 	 * The classic rectangular grid, with <em>square</em> tiles.
+	 * <p>
+	 * Rather than issuing a {@code fillRect()} per cell (which floods the render
+	 * queue with hundreds of thousands of commands on big boards), the cells are
+	 * rasterized with one pixel per cell (see {@link Raster}), and drawn scaled up
+	 * onto the canvas. The grid lines and axes are drawn on the overlay canvas, so
+	 * they are not redrawn on every step, and they cover the borders of the cells.
 	 */
 	static class Classic extends Grid {
-		Classic(ViewController masterControl, Canvas canvas, ScrollPane container) {
-			super(masterControl, canvas, container);
+		/** Below this cell size, show one pixel per block of cells (and no grid lines) */
+		private static final int LOD_CELL_SIZE = 4;
+
+		Classic(ViewController masterControl, Canvas canvas, Canvas overlay, ScrollPane container) {
+			super(masterControl, canvas, overlay, container, LOD_CELL_SIZE);
 		}
 
 		// For use by controller
 		@Override
 		int[] toRowColIndex(double x, double y) {
-			return new int[] { toRowIndex(y), toColIndex(x) };
+			return new int[] { toRowIndex(y + viewY), toColIndex(x + viewX) };
 		}
 
 		/** Convert from y-coordinate to row index, rounding down */
@@ -163,72 +485,79 @@ abstract class Grid {
 			return Math.min((int) (x / cellSize), ncols - 1);
 		}
 
-		/** Convert from row index to y-coordinate of the top-left of cell interior */
-		private double toYCoord(int row) {
-			return CELL_BORDER_WIDTH + row * cellSize;
+		@Override
+		double worldWidth() {
+			return ncols * cellSize;
 		}
 
-		/**
-		 * Convert from column index to x-coordinate of the top-left of cell interior
-		 */
-		private double toXCoord(int col) {
-			return CELL_BORDER_WIDTH + col * cellSize;
+		@Override
+		double worldHeight() {
+			return nrows * cellSize;
 		}
 
-		/**
-		 * Resizes and redraws the grid. Currently, this also clears the grid, but it
-		 * technically doesn't have to.
-		 */
 		@Override
-		protected void resizeCanvas() {
-			canvas.setWidth(ncols * cellSize);
-			canvas.setHeight(nrows * cellSize);
+		protected void updateVisibleCells(double width, double height) {
+			firstRow = Math.min((int) (viewY / cellSize), nrows);
+			firstCol = Math.min((int) (viewX / cellSize), ncols);
+			lastRow = Math.min((int) Math.ceil((viewY + height) / cellSize), nrows);
+			lastCol = Math.min((int) Math.ceil((viewX + width) / cellSize), ncols);
 		}
 
 		/**
-		 * Redraws the whole grid by querying the model for the state of each living
-		 * cell.
+		 * Redraws the visible part of the grid by querying the latest frame for the
+		 * state of each visible cell.
 		 */
 		@Override
 		void redraw() {
-			double width = canvas.getWidth();
-			double height = canvas.getHeight();
+			graphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+			raster.redraw(cellSize, cellSize);
+			redrawOverlay();
+		}
+
+		/**
+		 * Draws the grid lines and axes (in the density view, only the axes).
+		 */
+		private void redrawOverlay() {
+			double width = overlay.getWidth();
+			double height = overlay.getHeight();
 
 			/*
 			 * We could render each cell by using fillRect() followed by strokeRect() for
 			 * the cell borders. Alternatively, we can draw all the borders as grid lines
-			 * over the whole canvas, and then fill in the cell interiors. We currently,
-			 * take the second approach below.
+			 * over the whole canvas, on top of the cells. We currently take the second
+			 * approach below.
 			 */
-			graphics.setFill(Color.WHITE);
-			graphics.fillRect(0, 0, width, height);
-			graphics.setStroke(TILE_BORDER_COLOR);
-			graphics.setLineWidth(2 * CELL_BORDER_WIDTH);
-
-			// Draw vertical grid lines
-			for (int x = 0; x < width; x += cellSize)
-				graphics.strokeLine(x, 0, x, height);
-
-			// Draw horizontal grid lines
-			for (int y = 0; y < height; y += cellSize)
-				graphics.strokeLine(0, y, width, y);
-
-			// Fill in cells which are alive according to the model
-			masterControl.getModel().forAllLife((row, col, state) -> {
-				graphics.setFill(decideColor(state));
-
-				double x0 = toXCoord(col);
-				double y0 = toYCoord(row);
-				graphics.fillRect(x0, y0, cellInteriorSize, cellInteriorSize);
-			});
+			overlayGraphics.clearRect(0, 0, width, height);
+
+			if (block == 1) {
+				overlayGraphics.setStroke(TILE_BORDER_COLOR);
+				overlayGraphics.setLineWidth(2 * CELL_BORDER_WIDTH);
+
+				// Draw vertical grid lines
+				for (int col = firstCol; col <= lastCol; col++) {
+					double x = col * cellSize - viewX;
+					overlayGraphics.strokeLine(x, 0, x, height);
+				}
+
+				// Draw horizontal grid lines
+				for (int row = firstRow; row <= lastRow; row++) {
+					double y = row * cellSize - viewY;
+					overlayGraphics.strokeLine(0, y, width, y);
+				}
+			}
 
 			// Draw axis lines a little darker (and maybe thicker?) than normal grid lines
-			graphics.setLineWidth(2 * CELL_BORDER_WIDTH);
-			graphics.setStroke(AXIS_COLOR);
-			int halfX = ncols / 2 * cellSize;
-			int halfY = nrows / 2 * cellSize;
-			graphics.strokeLine(halfX, 0, halfX, height);
-			graphics.strokeLine(0, halfY, width, halfY);
+			overlayGraphics.setLineWidth(2 * CELL_BORDER_WIDTH);
+			overlayGraphics.setStroke(AXIS_COLOR);
+			double halfX = ncols / 2 * cellSize - viewX;
+			double halfY = nrows / 2 * cellSize - viewY;
+			overlayGraphics.strokeLine(halfX, 0, halfX, height);
+			overlayGraphics.strokeLine(0, halfY, width, halfY);
+		}
+
+		@Override
+		void flush() {
+			raster.flush();
 		}
 
 		/**
@@ -236,65 +565,82 @@ abstract class Grid {
 		 */
 		@Override
 		void toggleDisplayCell(MouseEvent event) {
-			// Actual mouse click coordinates
-			double x = event.getX();
-			double y = event.getY();
-
-			// Corresponding grid index
-			int row = toRowIndex(y);
-			int col = toColIndex(x);
-
-			// Top-left coordinates of the cell
-			double x0 = toXCoord(col);
-			double y0 = toYCoord(row);
+			// Corresponding grid index of the actual mouse click coordinates
+			int[] index = toRowColIndex(event.getX(), event.getY());
+			int row = index[0];
+			int col = index[1];
 
-			var model = masterControl.getModel();
+			var frame = masterControl.getFrame();
 
-			if (model.get(row, col) == CellState.DEAD) {
-				model.set(row, col, CellState.ALIVE);
-				graphics.setFill(primaryColor);
+			if (frame.get(row, col) == CellState.DEAD) {
+				masterControl.setCell(row, col, CellState.ALIVE);
+				setDisplayCell(row, col, CellState.ALIVE);
 			}
-			else { // (model.get(row, col) != CellState.DEAD)
-				model.set(row, col, CellState.DEAD);
-				graphics.setFill(Color.WHITE);
+			else { // (frame.get(row, col) != CellState.DEAD)
+				masterControl.setCell(row, col, CellState.DEAD);
+				setDisplayCell(row, col, CellState.DEAD);
 			}
 
-			graphics.fillRect(x0, y0, cellInteriorSize, cellInteriorSize);
+			flush();
 		}
 
 		/**
-		 * Callback for {@link model.ILife#step}.
-		 * <p>
-		 * This is passed (as a lambda) to the model so that it can notify the
-		 * controller whenever a cell changes state, allowing the canvas/grid to be
-		 * incrementally updated.
+		 * Draws a cell that changed state between two generations (see
+		 * {@link #setDisplayCells} and {@link Frame#updateFrom}), allowing the
+		 * canvas/grid to be incrementally updated.
 		 * <p>
 		 * In theory, this should be more efficient than redrawing the whole grid on
 		 * each step, but with GPUs and buffering and caches, maybe not.
 		 */
 		@Override
 		void setDisplayCell(int row, int col, CellState state) {
-			double x0 = toXCoord(col);
-			double y0 = toYCoord(row);
-
-			graphics.setFill(decideColor(state));
-			graphics.fillRect(x0, y0, cellInteriorSize, cellInteriorSize);
+			// Cells outside the viewport (or outside the grid, while resizing) are
+			// skipped.
+			raster.set(row, col, state);
 		};
 	}
 
 	/**
 	 * A rectangular grid with <em>hexagonal</em> tiles.
+	 * <p>
+	 * Rasterizing two polygons (the border and the interior) per tile is slow, so
+	 * each color of tile is only rendered once, into a sprite atlas, and the tiles
+	 * are then drawn by copying the sprite of their color. The sprites are
+	 * rendered again whenever the cell size changes.
+	 * <p>
+	 * Small hexagons are mostly border, so below a certain size the grid shows the
+	 * density view instead (with the blocks laid out on the rows of hexagons,
+	 * ignoring the offset of the odd rows).
 	 */
 	static class Hex extends Grid {
 		/** This is used a lot for intermediate calculations */
 		private static final double SQRT3 = Math.sqrt(3);
 
-		Hex(ViewController masterControl, Canvas canvas, ScrollPane container) {
-			super(masterControl, canvas, container);
+		/** Below this cell size, show one pixel per block of cells */
+		private static final int LOD_CELL_SIZE = 8;
+
+		/** The atlas starts over once it holds this many sprites */
+		private static final int MAX_SPRITES = 16;
+
+		/** Room around the interior of a sprite for the border */
+		private static final int SPRITE_PADDING = 2 * CELL_BORDER_WIDTH;
+
+		private WritableImage sprites; // side by side, in the order of spriteIndex
+		private final Map<Color, Integer> spriteIndex = new HashMap<>();
+		private int spriteCellSize; // cell size the sprites were rendered at
+		private int spriteWidth;
+		private int spriteHeight;
+
+		Hex(ViewController masterControl, Canvas canvas, Canvas overlay, ScrollPane container) {
+			super(masterControl, canvas, overlay, container, LOD_CELL_SIZE);
 		}
 
 		@Override
 		int[] toRowColIndex(double x, double y) {
+			// From canvas to world coordinates
+			x += viewX;
+			y += viewY;
+
 			/*
 			 * NOTE: The canvas coordinate has the center of the top-left hexagon at (W/2,
 			 * H/2) where W, H are the width and height of the hexagon. The pixel to cube
@@ -392,39 +738,102 @@ abstract class Grid {
 			return SQRT3 / 2 * cellInteriorSize;
 		}
 
-		private void drawHexTile(int row, int col, Paint interiorFill) {
+		private void drawHexTile(int row, int col, Color interiorFill) {
+			// (x0, y0) is the coordinate of the top point, relative to the canvas.
+			double x0 = toXCoord(row, col) - viewX;
+			double y0 = toYCoord(row, col) - viewY;
+
+			// Snap to whole pixels, so that the sprite is copied as is.
+			double x = Math.round(x0 - hexInteriorWidth() / 2 - SPRITE_PADDING);
+			double y = Math.round(y0 - SPRITE_PADDING);
+
+			graphics.drawImage(sprites, sprite(interiorFill) * spriteWidth, 0, spriteWidth,
+			    spriteHeight, x, y, spriteWidth, spriteHeight);
+		}
+
+		/**
+		 * Discards the sprites if the cell size changed since they were rendered.
+		 */
+		private void validateSprites() {
+			if (sprites != null && spriteCellSize == cellSize)
+				return;
+
+			spriteCellSize = cellSize;
+			spriteWidth = (int) Math.ceil(hexInteriorWidth()) + 2 * SPRITE_PADDING;
+			spriteHeight = (int) Math.ceil(hexInteriorHeight()) + 2 * SPRITE_PADDING;
+			sprites = new WritableImage(MAX_SPRITES * spriteWidth, spriteHeight);
+			spriteIndex.clear();
+		}
+
+		/**
+		 * Returns the position of the sprite of a color in the atlas, rendering it
+		 * first if needed.
+		 */
+		private int sprite(Color interiorFill) {
+			Integer index = spriteIndex.get(interiorFill);
+			if (index != null)
+				return index;
+
+			// Only a handful of colors are ever used, unless the primary color keeps
+			// changing.
+			if (spriteIndex.size() == MAX_SPRITES)
+				spriteIndex.clear();
+
+			var tile = new Canvas(spriteWidth, spriteHeight);
+			var tileGraphics = tile.getGraphicsContext2D();
+
 			// Assume we're drawing the hexagon in "pointy-top" orientation.
 			// (x0, y0) is the coordinate of the top point.
-			double x0 = toXCoord(row, col);
-			double y0 = toYCoord(row, col);
-
 			double dx = hexInteriorWidth() / 2;
 			double dy = hexInteriorHeight() / 4;
+			double x0 = SPRITE_PADDING + dx;
+			double y0 = SPRITE_PADDING;
 
 			double[] xs = { x0, x0 + dx, x0 + dx, x0, x0 - dx, x0 - dx };
 			double[] ys = { y0, y0 + dy, y0 + 3 * dy, y0 + 4 * dy, y0 + 3 * dy, y0 + dy };
 
-			graphics.setStroke(TILE_BORDER_COLOR);
-			graphics.setLineWidth(3 * CELL_BORDER_WIDTH);
-			graphics.strokePolygon(xs, ys, 6);
+			tileGraphics.setStroke(TILE_BORDER_COLOR);
+			tileGraphics.setLineWidth(3 * CELL_BORDER_WIDTH);
+			tileGraphics.strokePolygon(xs, ys, 6);
+
+			tileGraphics.setFill(interiorFill);
+			tileGraphics.fillPolygon(xs, ys, 6);
+
+			var parameters = new SnapshotParameters();
+			parameters.setFill(Color.TRANSPARENT);
+			var image = tile.snapshot(parameters, null);
 
-			graphics.setFill(interiorFill);
-			graphics.fillPolygon(xs, ys, 6);
+			index = spriteIndex.size();
+			sprites.getPixelWriter().setPixels(index * spriteWidth, 0, spriteWidth, spriteHeight,
+			    image.getPixelReader(), 0, 0);
+			spriteIndex.put(interiorFill, index);
+			return index;
 		}
 
-		/**
-		 * Resizes and redraws the grid. Currently, this also clears the grid, but it
-		 * technically doesn't have to.
-		 */
 		@Override
-		protected void resizeCanvas() {
-			canvas.setWidth((ncols + 0.5) * hexWidth());
-			canvas.setHeight((0.75 * nrows + 0.25) * hexHeight());
+		double worldWidth() {
+			return (ncols + 0.5) * hexWidth();
+		}
+
+		@Override
+		double worldHeight() {
+			return (0.75 * nrows + 0.25) * hexHeight();
+		}
+
+		@Override
+		protected void updateVisibleCells(double width, double height) {
+			// Tiles span 1.5 widths horizontally (odd rows are offset) and overlap the
+			// rows above and below, so widen the range by one on each side.
+			double rowHeight = 0.75 * hexHeight();
+			firstRow = Math.clamp((int) (viewY / rowHeight) - 1, 0, nrows);
+			firstCol = Math.clamp((int) (viewX / hexWidth()) - 1, 0, ncols);
+			lastRow = Math.clamp((int) Math.ceil((viewY + height) / rowHeight) + 1, firstRow, nrows);
+			lastCol = Math.clamp((int) Math.ceil((viewX + width) / hexWidth()) + 1, firstCol, ncols);
 		}
 
 		/**
-		 * Redraws the whole grid by querying the model for the state of each living
-		 * cell.
+		 * Redraws the visible part of the grid by querying the latest frame for the
+		 * state of each visible cell.
 		 */
 		@Override
 		void redraw() {
@@ -432,12 +841,26 @@ abstract class Grid {
 			double height = canvas.getHeight();
 
 			graphics.clearRect(0, 0, width, height);
+			overlayGraphics.clearRect(0, 0, width, height); // tiles draw their own borders
+
+			if (block > 1) {
+				raster.redraw(hexWidth(), 0.75 * hexHeight());
+				return;
+			}
+
+			validateSprites();
 
-			var model = masterControl.getModel();
+			var frame = masterControl.getFrame();
 
-			for (int row = 0; row < nrows; row++)
-				for (int col = 0; col < ncols; col++)
-					drawHexTile(row, col, decideColor(model.get(row, col)));
+			for (int row = firstRow; row < lastRow; row++)
+				for (int col = firstCol; col < lastCol; col++)
+					drawHexTile(row, col, decideColor(frame.get(row, col)));
+		}
+
+		@Override
+		void flush() {
+			if (block > 1)
+				raster.flush();
 		}
 
 		/**
@@ -458,31 +881,34 @@ abstract class Grid {
 			if (row < 0 || row >= nrows || col < 0 || col >= ncols)
 				return;
 
-			var model = masterControl.getModel();
+			var frame = masterControl.getFrame();
 
-			if (model.get(row, col) == CellState.DEAD) {
-				model.set(row, col, CellState.ALIVE);
-				drawHexTile(row, col, primaryColor);
+			if (frame.get(row, col) == CellState.DEAD) {
+				masterControl.setCell(row, col, CellState.ALIVE);
+				setDisplayCell(row, col, CellState.ALIVE);
 			}
 			else {
-				model.set(row, col, CellState.DEAD);
-				drawHexTile(row, col, Color.WHITE);
+				masterControl.setCell(row, col, CellState.DEAD);
+				setDisplayCell(row, col, CellState.DEAD);
 			}
+
+			flush();
 		}
 
 		/**
-		 * Callback for {@link model.ILife#step}.
-		 * <p>
-		 * This is passed (as a lambda) to the model so that it can notify the
-		 * controller whenever a cell changes state, allowing the canvas/grid to be
-		 * incrementally updated.
+		 * Draws a cell that changed state between two generations (see
+		 * {@link #setDisplayCells} and {@link Frame#updateFrom}), allowing the
+		 * canvas/grid to be incrementally updated.
 		 * <p>
 		 * In theory, this should be more efficient than redrawing the whole grid on
 		 * each step, but with GPUs and buffering and caches, maybe not.
 		 */
 		@Override
 		void setDisplayCell(int row, int col, CellState state) {
-			drawHexTile(row, col, decideColor(state));
+			if (block > 1)
+				raster.set(row, col, state);
+			else if (row >= firstRow && row < lastRow && col >= firstCol && col < lastCol)
+				drawHexTile(row, col, decideColor(state));
 		};
 	}
 }
@@ -0,0 +1,114 @@
+package application;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.control.ScrollPane;
+import model.CellState;
+
+/**
+ * A hook for driving a {@link Grid} from outside of the application (e.g., by
+ * {@code benchmark.GridBenchmark}), without a model or the rest of the user
+ * interface. The grid draws a frame of its own, which is edited directly.
+ * <p>
+ * Not used by the application itself.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class GridHarness {
+	private final ViewController controller = new ViewController();
+	private final Frame frame = controller.getFrame();
+	private final Grid grid;
+
+	/**
+	 * @param hex       whether to use a {@link Grid.Hex} rather than a
+	 *                  {@link Grid.Classic}
+	 * @param container scroll pane whose content holds both canvases
+	 */
+	public GridHarness(boolean hex, Canvas canvas, Canvas overlay, ScrollPane container) {
+		grid = hex ? new Grid.Hex(controller, canvas, overlay, container)
+		    : new Grid.Classic(controller, canvas, overlay, container);
+	}
+
+	/**
+	 * Sets the dimensions of the world (all cells dead) and the size of its cells.
+	 * Like {@code Grid.setSize()}, minus resizing the (absent) model and the
+	 * world pane, which is up to the caller (see {@link #worldWidth()}).
+	 */
+	public void setSize(int nrows, int ncols, int cellSize) {
+		frame.resize(nrows, ncols);
+		grid.nrows = nrows;
+		grid.ncols = ncols;
+		grid.cellSize = cellSize;
+		grid.cellInteriorSize = cellSize - 2 * Grid.CELL_BORDER_WIDTH;
+	}
+
+	/** Width of the whole world, in pixels */
+	public double worldWidth() {
+		return grid.worldWidth();
+	}
+
+	/** Height of the whole world, in pixels */
+	public double worldHeight() {
+		return grid.worldHeight();
+	}
+
+	public CellState get(int row, int col) {
+		return frame.get(row, col);
+	}
+
+	/**
+	 * Sets a cell of the world, without drawing it (see
+	 * {@link #setDisplayCell}).
+	 */
+	public void set(int row, int col, CellState state) {
+		frame.set(row, col, state);
+	}
+
+	/**
+	 * Follows the viewport of the container, after it was laid out.
+	 */
+	public void updateViewport() {
+		grid.updateViewport();
+	}
+
+	/** First visible row (inclusive) */
+	public int firstVisibleRow() {
+		return grid.firstVisibleRow();
+	}
+
+	/** Last visible row (exclusive) */
+	public int lastVisibleRow() {
+		return grid.lastVisibleRow();
+	}
+
+	/** First visible column (inclusive) */
+	public int firstVisibleCol() {
+		return grid.firstCol;
+	}
+
+	/** Last visible column (exclusive) */
+	public int lastVisibleCol() {
+		return grid.lastCol;
+	}
+
+	/**
+	 * Draws all of the visible cells.
+	 */
+	public void redraw() {
+		grid.redraw();
+	}
+
+	/**
+	 * Queues a cell for drawing on the next {@link #flush()}.
+	 */
+	public void setDisplayCell(int row, int col, CellState state) {
+		grid.setDisplayCell(row, col, state);
+	}
+
+	/**
+	 * Draws the cells queued since the last flush.
+	 */
+	public void flush() {
+		grid.flush();
+	}
+}
@@ -0,0 +1,422 @@
+package application;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import model.CellState;
+import model.ILife;
+
+/**
+ * A bounded history of the world, for rewinding (and replaying) it.
+ * <p>
+ * Every change of the world (a step, a stretch of unthrottled steps, a cell
+ * toggled by the user...) is recorded as an entry in a ring buffer. Each entry
+ * is a delta: the list of the cells that changed, with their states before and
+ * after. The cell indices are delta-encoded as variable-length integers and
+ * both states are packed into a single byte, so most changes take two or three
+ * bytes, whatever the size of the world. Undoing or redoing an entry therefore
+ * costs time proportional to the number of cells it changed, not to the area
+ * of the world.
+ * <p>
+ * When a long jump would replay more changes than there are cells, it is
+ * faster to restore a full copy of the world instead, so such copies
+ * (keyframes) are taken periodically, as long as they fit comfortably within
+ * the memory budget. Once the entries and keyframes exceed the budget, the
+ * oldest entries are dropped.
+ * <p>
+ * Positions in the history count entries: position {@code p} is the state of
+ * the world before entry {@code p} (equivalently, after entry {@code p - 1}).
+ * The world is normally at the {@link #end()}. After rewinding, the entries
+ * between the {@link #cursor()} and the end can be replayed, until something
+ * new is recorded, which discards them.
+ * <p>
+ * Rewinding only sets cells back, so it needs models whose cells are all of
+ * their state. The history is disabled for the others (see
+ * {@link #setEnabled(boolean)}).
+ * <p>
+ * Confined to the simulation worker thread.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class History {
+	/** Rough memory cost of an entry besides its data */
+	private static final int ENTRY_OVERHEAD = 64;
+
+	private static final CellState[] STATES = CellState.values();
+
+	/**
+	 * The changes of one entry, and the counters of the world before and after.
+	 * The offset is the number of bytes of data in all the previous entries,
+	 * which is used for estimating the cost of replaying a range of entries.
+	 */
+	private record Entry(byte[] data, long fromGeneration, long fromStepCount, long toGeneration,
+	    long toStepCount, long offset) {
+		/** Offset of the next entry */
+		long end() {
+			return offset + data.length;
+		}
+	}
+
+	private long budget; // in bytes (0 disables the history)
+	private boolean enabled = true; // whether the model can be rewound
+	private long usage; // bytes used by the entries and keyframes
+
+	// Ring buffer of entries, indexed by position
+	private Entry[] entries = new Entry[64];
+	private long first; // position of the oldest entry
+	private long end; // position after the newest entry
+	private long cursor; // current position of the world
+	private long endOffset; // bytes of data in the entries before the end (including dropped ones)
+
+	// Full copies of the world, by position
+	private final TreeMap<Long, Frame> keyframes = new TreeMap<>();
+	private long lastKeyframeOffset; // offset of the entries at the last keyframe
+
+	// The entry being recorded
+	private boolean recording;
+	private boolean overflowed; // whether the entry outgrew the budget
+	private long fromGeneration;
+	private long fromStepCount;
+	private byte[] buffer = new byte[1024];
+	private int length;
+	private int lastIndex;
+
+	// For decoding an entry (in reverse when undoing it)
+	private int[] indices = new int[64];
+	private byte[] states = new byte[64];
+
+	/**
+	 * Sets the memory budget, dropping the oldest entries if needed.
+	 */
+	void setBudget(long budget) {
+		this.budget = budget;
+
+		if (budget == 0)
+			clear();
+		else
+			evict();
+	}
+
+	/**
+	 * Enables or disables the history, e.g., for models that can't be rewound by
+	 * setting cells back (see {@link ILife#isRewindable()}). Either way, the
+	 * history starts over.
+	 */
+	void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		clear();
+	}
+
+	/**
+	 * Forgets everything (e.g., when the world is resized).
+	 */
+	void clear() {
+		Arrays.fill(entries, null);
+		first = end = cursor = 0;
+		endOffset = 0;
+		keyframes.clear();
+		lastKeyframeOffset = 0;
+		usage = 0;
+		recording = false;
+	}
+
+	/** Position of the oldest state that can be restored */
+	long first() {
+		return first;
+	}
+
+	/** Position of the world */
+	long cursor() {
+		return cursor;
+	}
+
+	/** Position of the newest state */
+	long end() {
+		return end;
+	}
+
+	/**
+	 * Starts recording an entry, unless one is already being recorded. The
+	 * entries that could have been replayed are discarded.
+	 *
+	 * @param generation generation of the world so far
+	 * @param stepCount  step count of the world so far
+	 */
+	void open(long generation, long stepCount) {
+		if (recording || budget == 0 || !enabled)
+			return;
+
+		truncate();
+		recording = true;
+		overflowed = false;
+		fromGeneration = generation;
+		fromStepCount = stepCount;
+		length = 0;
+		lastIndex = 0;
+	}
+
+	/**
+	 * Records a change of the cell at the given (row-major) index. Does nothing if
+	 * no entry is being recorded.
+	 */
+	void record(int index, CellState before, CellState after) {
+		if (!recording || overflowed || before == after)
+			return;
+
+		if (length + 6 > buffer.length) {
+			if (buffer.length > budget) {
+				overflowed = true;
+				return;
+			}
+
+			buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+		}
+
+		// zig-zag encoded difference from the previous index, 7 bits at a time
+		int delta = index - lastIndex;
+		int value = (delta << 1) ^ (delta >> 31);
+		while ((value & ~0x7f) != 0) {
+			buffer[length++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		buffer[length++] = (byte) value;
+		buffer[length++] = (byte) (before.ordinal() << 4 | after.ordinal());
+
+		lastIndex = index;
+	}
+
+	/**
+	 * Finishes recording the entry (which is dropped if nothing changed).
+	 *
+	 * @param generation generation of the world now
+	 * @param stepCount  step count of the world now
+	 * @param world      the world now (for taking a keyframe)
+	 */
+	void commit(long generation, long stepCount, Frame world) {
+		if (!recording)
+			return;
+
+		recording = false;
+
+		if (overflowed) {
+			// The world can't be rewound past this entry.
+			clear();
+			buffer = new byte[1024];
+			return;
+		}
+
+		if (length == 0)
+			return;
+
+		var entry = new Entry(Arrays.copyOf(buffer, length), fromGeneration, fromStepCount,
+		    generation, stepCount, endOffset);
+
+		if (end - first == entries.length)
+			grow();
+
+		entries[(int) (end % entries.length)] = entry;
+		end++;
+		cursor = end;
+		endOffset = entry.end();
+		usage += ENTRY_OVERHEAD + length;
+
+		// Take a keyframe once replaying the entries since the last one would cost
+		// more than restoring a keyframe (and if keyframes are reasonably small).
+		long area = (long) world.nrows * world.ncols;
+		if (entry.end() - lastKeyframeOffset >= area && area <= budget / 4) {
+			var keyframe = new Frame();
+			keyframe.copyFrom(world);
+			keyframes.put(end, keyframe);
+			lastKeyframeOffset = entry.end();
+			usage += area;
+		}
+
+		evict();
+	}
+
+	private Entry entry(long position) {
+		return entries[(int) (position % entries.length)];
+	}
+
+	private void grow() {
+		var grown = new Entry[2 * entries.length];
+		for (long p = first; p < end; p++)
+			grown[(int) (p % grown.length)] = entry(p);
+		entries = grown;
+	}
+
+	/**
+	 * Discards the entries (and keyframes) after the cursor.
+	 */
+	private void truncate() {
+		if (end == cursor)
+			return;
+
+		endOffset = offsetAt(cursor);
+
+		while (end > cursor) {
+			end--;
+			usage -= ENTRY_OVERHEAD + entry(end).data().length;
+			entries[(int) (end % entries.length)] = null;
+		}
+
+		drop(keyframes.tailMap(cursor, false));
+
+		var last = keyframes.lastEntry();
+		lastKeyframeOffset = last == null ? offsetAt(first) : offsetAt(last.getKey());
+	}
+
+	private void drop(Map<Long, Frame> keyframes) {
+		for (var keyframe : keyframes.values())
+			usage -= (long) keyframe.nrows * keyframe.ncols;
+
+		keyframes.clear();
+	}
+
+	/** Bytes of data in the entries before the given position */
+	private long offsetAt(long position) {
+		return position < end ? entry(position).offset() : endOffset;
+	}
+
+	/**
+	 * Drops the oldest entries (and the keyframes before them) until the budget
+	 * is met. The cursor is never dropped, so if the world was rewound that far,
+	 * the entries that could be replayed go instead.
+	 */
+	private void evict() {
+		while (usage > budget && first < cursor) {
+			usage -= ENTRY_OVERHEAD + entry(first).data().length;
+			entries[(int) (first % entries.length)] = null;
+			first++;
+
+			drop(keyframes.headMap(first, false));
+		}
+
+		if (usage > budget)
+			truncate();
+	}
+
+	/**
+	 * Moves the world to the given position (clamped to the history), updating
+	 * both the model and its mirror, along with the mirror's counters. Whichever
+	 * is cheaper is used: undoing/redoing every entry in between, or restoring
+	 * the nearest keyframe and replaying the entries from there.
+	 */
+	void seek(long position, ILife model, Frame world) {
+		long target = Math.clamp(position, first, end);
+
+		if (target == cursor)
+			return;
+
+		long cost = Math.abs(offsetAt(target) - offsetAt(cursor));
+		long area = (long) world.nrows * world.ncols;
+
+		var before = keyframes.floorEntry(target);
+		var after = keyframes.ceilingEntry(target);
+		Map.Entry<Long, Frame> best = null;
+
+		for (var keyframe : Arrays.asList(before, after)) {
+			if (keyframe == null)
+				continue;
+
+			long keyframeCost = area + Math.abs(offsetAt(target) - offsetAt(keyframe.getKey()));
+			if (keyframeCost < cost) {
+				cost = keyframeCost;
+				best = keyframe;
+			}
+		}
+
+		if (best != null)
+			restore(best.getKey(), best.getValue(), model, world);
+
+		while (cursor > target)
+			undo(model, world);
+		while (cursor < target)
+			redo(model, world);
+
+		world.stalled = false;
+	}
+
+	private void restore(long position, Frame keyframe, ILife model, Frame world) {
+		for (int r = 0; r < world.nrows; r++) {
+			for (int c = 0; c < world.ncols; c++) {
+				var state = keyframe.get(r, c);
+				if (world.get(r, c) != state) {
+					model.set(r, c, state);
+					world.set(r, c, state);
+				}
+			}
+		}
+
+		world.generation = keyframe.generation;
+		world.stepCount = keyframe.stepCount;
+		cursor = position;
+	}
+
+	private void undo(ILife model, Frame world) {
+		var entry = entry(--cursor);
+		int count = decode(entry);
+
+		// A cell may have changed more than once, so go backwards.
+		for (int i = count - 1; i >= 0; i--)
+			apply(indices[i], STATES[states[i] >> 4], model, world);
+
+		world.generation = entry.fromGeneration();
+		world.stepCount = entry.fromStepCount();
+	}
+
+	private void redo(ILife model, Frame world) {
+		var entry = entry(cursor++);
+		int count = decode(entry);
+
+		for (int i = 0; i < count; i++)
+			apply(indices[i], STATES[states[i] & 0xf], model, world);
+
+		world.generation = entry.toGeneration();
+		world.stepCount = entry.toStepCount();
+	}
+
+	private static void apply(int index, CellState state, ILife model, Frame world) {
+		int row = index / world.ncols;
+		int col = index % world.ncols;
+		model.set(row, col, state);
+		world.set(row, col, state);
+	}
+
+	/**
+	 * Decodes the changes of an entry into {@code indices} and {@code states}.
+	 *
+	 * @return the number of changes
+	 */
+	private int decode(Entry entry) {
+		byte[] data = entry.data();
+		int count = 0;
+		int index = 0;
+
+		for (int i = 0; i < data.length;) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[i++];
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			index += (value >>> 1) ^ -(value & 1);
+
+			if (count == indices.length) {
+				indices = Arrays.copyOf(indices, 2 * count);
+				states = Arrays.copyOf(states, 2 * count);
+			}
+
+			indices[count] = index;
+			states[count] = data[i++];
+			count++;
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,620 @@
+package application;
+
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import model.CellState;
+import model.HashLife;
+import model.ILife;
+
+/**
+ * Runs the simulation on a dedicated thread, so that a slow step never stalls
+ * the FX thread (and with it clicks, spinner edits, window resizes...).
+ * <p>
+ * The model is confined to the worker thread. The FX thread never touches it
+ * directly; instead, it posts commands (set a cell, randomize, resize...) which
+ * the worker runs between steps, in order.
+ * <p>
+ * In the other direction, the worker publishes completed generations as
+ * {@link Frame}s through a lock-free single-producer/single-consumer triple
+ * buffer: the worker fills a back buffer and swaps it with the middle one, and
+ * the FX thread swaps its front buffer with the middle one whenever a fresh
+ * frame is available. Neither side ever waits for the other. If the FX thread
+ * falls behind, intermediate generations are simply never published, and the
+ * FX thread gets the latest one on its next pulse.
+ * <p>
+ * In unthrottled mode, the worker steps as fast as the model allows instead of
+ * at the requested ticks per second. The mirror is then only brought up to date
+ * when a frame is actually published (at most once per FX pulse): the
+ * intermediate generations just mark the cells they change in a bit set, and
+ * only those cells are read back from the model (rather than the whole world).
+ * Skipped generations work the same way, except that {@link HashLife} skips
+ * them in jumps of 2^k generations (see {@link HashLife#advance}). A skip runs
+ * in slices of a few milliseconds (or one jump) between the commands, so that
+ * it never holds up pausing, editing or resizing the world, and it is
+ * published as it goes.
+ * <p>
+ * The worker also keeps the {@link History} of the world, since it is the one
+ * that sees every change. Unthrottled (and skipped) generations are recorded
+ * as a single entry when the mirror is brought up to date.
+ * <p>
+ * Likewise, the worker watches for cycles: it looks up the hash of the mirror
+ * (see {@link Frame#hash()}) after every step in a {@link CycleDetector}, and
+ * pauses once the world repeats itself. In unthrottled mode, only the
+ * published generations are looked up.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class SimulationWorker {
+	// ====================
+	// Shared between threads
+	// ====================
+	private final Thread thread;
+	private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+	private volatile boolean playing;
+	private volatile int ticksPerSecond = 2;
+	private volatile boolean unthrottled;
+	private volatile Consumer<Throwable> errorHandler = error -> {
+	};
+
+	/*
+	 * The triple buffer. The lower bits of `middle` hold the index of the middle
+	 * buffer, and the FRESH bit is set when it holds a frame that the FX thread has
+	 * not taken yet.
+	 */
+	private static final int INDEX_MASK = 0b11;
+	private static final int FRESH = 0b100;
+	private final Frame[] buffers = { new Frame(), new Frame(), new Frame() };
+	private final AtomicInteger middle = new AtomicInteger(1);
+	private int back = 0; // owned by the worker
+	private int front = 2; // owned by the FX thread
+
+	// ====================
+	// Owned by the worker
+	// ====================
+	private ILife model;
+	private final Frame current = new Frame(); // mirrors the model
+	private final ILife.Callback updateCurrent = this::updateCurrent;
+	private final History history = new History();
+	private final CycleDetector cycles = new CycleDetector();
+	private final BitSet dirty = new BitSet(); // cells changed since current was last updated
+	private final ILife.Callback markDirty = (row, col, state) -> dirty.set(row * current.ncols + col);
+	private boolean unpublished; // whether current has changed since the last publish()
+	private boolean stale; // whether the model was stepped without updating current
+	private boolean sized = true; // whether the model was resized since it was set
+	private long skipping; // generations left to skip
+	private long nextTick;
+
+	/** Time spent skipping before running the commands again */
+	private static final long SKIP_SLICE_NANOS = 10_000_000;
+
+	SimulationWorker(ILife model) {
+		this.model = model;
+		this.history.setEnabled(model.isRewindable());
+		this.thread = new Thread(this::run, "simulation");
+		thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	// ==================
+	// For the FX thread
+	// ==================
+
+	/**
+	 * Returns the latest published frame if it has not been returned yet, or
+	 * {@code null} otherwise. The frame stays valid until the next call.
+	 */
+	Frame poll() {
+		if ((middle.get() & FRESH) == 0)
+			return null;
+
+		front = middle.getAndSet(front) & INDEX_MASK;
+		return buffers[front];
+	}
+
+	boolean isPlaying() {
+		return playing;
+	}
+
+	/**
+	 * Starts stepping at the current rate. The worker pauses by itself if the
+	 * simulation stalls, or enters a cycle (which is reported once, until the
+	 * world is edited).
+	 */
+	void play() {
+		playing = true;
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Stops playing, and skipping (see {@link #skip(int)}).
+	 */
+	void pause() {
+		playing = false;
+		post(() -> skipping = 0);
+	}
+
+	void setTicksPerSecond(int ticksPerSecond) {
+		this.ticksPerSecond = Math.max(1, ticksPerSecond);
+		LockSupport.unpark(thread);
+	}
+
+	boolean isUnthrottled() {
+		return unthrottled;
+	}
+
+	/**
+	 * Enables or disables unthrottled mode, where the simulation runs as many
+	 * generations per second as the model allows (ignoring the ticks per second).
+	 */
+	void setUnthrottled(boolean unthrottled) {
+		this.unthrottled = unthrottled;
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Advances the simulation by one step.
+	 */
+	void step() {
+		post(() -> {
+			if (sized)
+				stepModel(false);
+		});
+	}
+
+	/**
+	 * Advances the simulation by the given number of steps (or until it stalls),
+	 * without updating the mirror for the intermediate generations. The steps are
+	 * added to those of a skip in progress, if any.
+	 */
+	void skip(int steps) {
+		post(() -> skipping += steps);
+	}
+
+	void set(int row, int col, CellState state) {
+		post(() -> edit(() -> model.set(row, col, state)));
+	}
+
+	void clear() {
+		post(() -> edit(() -> {
+			model.clear();
+			resetStepCount();
+		}));
+	}
+
+	void randomize() {
+		post(() -> edit(() -> {
+			model.randomize();
+			resetStepCount();
+		}));
+	}
+
+	/**
+	 * Resizes the world. If the model can't be resized (e.g., it runs out of
+	 * memory), the world goes back to its previous size and cells, the failure
+	 * runs on the worker thread, and the error is reported as usual.
+	 */
+	void resize(int nrows, int ncols, Runnable onFailure) {
+		post(() -> {
+			skipping = 0;
+
+			try {
+				model.resize(nrows, ncols);
+				sized = true;
+			}
+			catch (Throwable e) {
+				rollBackResize();
+				onFailure.run();
+				throw e;
+			}
+
+			current.resize(nrows, ncols);
+			history.clear();
+			resync();
+			resetStepCount();
+		});
+	}
+
+	/**
+	 * Replaces the model. The new model must be resized before use: until then,
+	 * the worker doesn't step it (even if playing), so that it never steps a model
+	 * with no world yet.
+	 */
+	void setModel(ILife model) {
+		post(() -> {
+			this.model = model;
+			sized = false;
+			skipping = 0;
+			history.setEnabled(model.isRewindable());
+			forgetCycle();
+		});
+	}
+
+	/**
+	 * Moves the window of a model with a viewport (see
+	 * {@link ILife#hasViewport()}) so that it is centered on the live cells. Does
+	 * nothing if there is no life, or the model has no viewport.
+	 */
+	void centerOnLife() {
+		post(() -> {
+			var box = model.boundingBox();
+			if (box == null)
+				return;
+
+			long centerRow = box[0] + (box[2] - box[0]) / 2;
+			long centerCol = box[1] + (box[3] - box[1]) / 2;
+			model.setViewport(centerRow - current.nrows / 2, centerCol - current.ncols / 2);
+
+			// The recorded changes are relative to the old window.
+			history.clear();
+			resync();
+			forgetCycle();
+		});
+	}
+
+	/**
+	 * Rewinds the world by one entry of its history (one step, one stretch of
+	 * skipped or unthrottled generations, or one edit).
+	 */
+	void back() {
+		post(() -> moveInHistory(history.cursor() - 1));
+	}
+
+	/**
+	 * Rewinds or replays the world to a position of its history (see
+	 * {@link Frame#historyCursor}).
+	 */
+	void seek(long position) {
+		post(() -> moveInHistory(position));
+	}
+
+	/**
+	 * Sets the memory budget of the history (0 disables it).
+	 */
+	void setHistoryBudget(long bytes) {
+		post(() -> history.setBudget(bytes));
+	}
+
+	/**
+	 * Sets the action to run (on the worker thread) when a command or a step
+	 * throws. The worker stops playing in any case. By default, errors are
+	 * ignored.
+	 */
+	void setErrorHandler(Consumer<Throwable> errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Runs an arbitrary action with the model, on the worker thread.
+	 */
+	void execute(Consumer<ILife> action) {
+		post(() -> action.accept(model));
+	}
+
+	private void post(Runnable command) {
+		commands.add(command);
+		LockSupport.unpark(thread);
+	}
+
+	// ====================
+	// On the worker thread
+	// ====================
+
+	private void run() {
+		while (true) {
+			try {
+				runOnce();
+			}
+			catch (Throwable e) {
+				// Keep the worker alive (and stop playing) if a model misbehaves or runs out
+				// of memory.
+				playing = false;
+				errorHandler.accept(e);
+			}
+		}
+	}
+
+	/**
+	 * Runs the pending commands, then either steps, waits for the next tick, or
+	 * waits for something to do.
+	 */
+	private void runOnce() {
+		Runnable command;
+		while ((command = commands.poll()) != null) {
+			command.run();
+			unpublished = true;
+		}
+
+		if (skipping > 0 && sized) {
+			skipSlice();
+
+			// Skip this generation if the FX thread hasn't taken the previous one yet.
+			if ((middle.get() & FRESH) == 0 || skipping == 0)
+				publish();
+		}
+		else if (playing && sized) {
+			long now = System.nanoTime();
+
+			if (!unthrottled && now < nextTick) {
+				if (unpublished)
+					publish();
+
+				LockSupport.parkNanos(this, nextTick - now);
+				return;
+			}
+
+			nextTick = now + 1_000_000_000L / ticksPerSecond;
+			stepModel(unthrottled);
+
+			// Skip this generation if the FX thread hasn't taken the previous one yet.
+			if ((middle.get() & FRESH) == 0 || !playing)
+				publish();
+		}
+		else {
+			if (unpublished)
+				publish();
+
+			LockSupport.park(this);
+		}
+	}
+
+	/**
+	 * @param quiet whether to skip updating the mirror (see {@link #catchUp()})
+	 */
+	private void stepModel(boolean quiet) {
+		// Start counting over after the simulation stalled.
+		if (current.stalled)
+			resetStepCount();
+
+		if (!quiet && stale) {
+			catchUp();
+			detectCycle();
+		}
+
+		boolean changed;
+
+		if (quiet) {
+			// Recorded by the next catchUp().
+			history.open(current.generation, current.stepCount);
+			changed = model.step(markDirty);
+			stale |= changed;
+		}
+		else {
+			history.open(current.generation, current.stepCount);
+			changed = model.step(updateCurrent);
+		}
+
+		current.generation++;
+
+		if (changed)
+			current.stepCount++;
+		else {
+			// Stop playing if the simulation stalls (reaches a fixed point).
+			current.stalled = true;
+			playing = false;
+		}
+
+		if (!quiet) {
+			history.commit(current.generation, current.stepCount, current);
+			detectCycle();
+		}
+
+		unpublished = true;
+	}
+
+	/**
+	 * Skips generations for a slice of time, or until the simulation stalls. A
+	 * HashLife world instead leaps by the largest power of 2 left to skip, so the
+	 * whole skip takes one jump per set bit of the number of steps.
+	 */
+	private void skipSlice() {
+		if (model instanceof HashLife hashLife) {
+			int k = Long.SIZE - 1 - Long.numberOfLeadingZeros(skipping);
+			leap(hashLife, k);
+			skipping -= 1L << k;
+			return;
+		}
+
+		long deadline = System.nanoTime() + SKIP_SLICE_NANOS;
+
+		while (skipping > 0 && !current.stalled && System.nanoTime() < deadline) {
+			stepModel(true);
+			skipping--;
+		}
+
+		if (current.stalled)
+			skipping = 0;
+	}
+
+	/**
+	 * Advances a HashLife world by 2^k generations in one jump (see
+	 * {@link HashLife#advance}), without updating the mirror. A jump that doesn't
+	 * change the window says nothing about whether the world stalled (it may be
+	 * oscillating), so leaping never stops the simulation.
+	 */
+	private void leap(HashLife hashLife, int k) {
+		if (current.stalled)
+			resetStepCount();
+
+		// Recorded by the next catchUp().
+		history.open(current.generation, current.stepCount);
+
+		boolean changed = hashLife.advance(k, markDirty);
+		stale |= changed;
+		current.generation += 1L << k;
+
+		if (changed)
+			current.stepCount += 1L << k;
+
+		unpublished = true;
+	}
+
+	/**
+	 * Applies an edit of the user to the model, and records it in the history.
+	 */
+	private void edit(Runnable action) {
+		if (stale)
+			catchUp();
+
+		history.open(current.generation, current.stepCount);
+		action.run();
+		resync();
+		forgetCycle();
+	}
+
+	private void moveInHistory(long position) {
+		if (stale)
+			catchUp();
+
+		history.seek(position, model, current);
+		forgetCycle();
+	}
+
+	/**
+	 * Looks up the hash of the mirror among those of the previous generations,
+	 * and stops playing if it was seen before. Once a cycle was found, it is not
+	 * looked for again until the world is edited (so playing on is possible).
+	 */
+	private void detectCycle() {
+		if (current.stalled || current.cyclePeriod != 0)
+			return;
+
+		long start = cycles.observe(current.hash(), current.stepCount);
+		if (start < 0)
+			return;
+
+		long period = current.stepCount - start;
+
+		if (!cycles.observedSince(start)) {
+			// Some generations in between were skipped (in unthrottled mode), so this
+			// is a multiple of the actual period. The world is in the cycle, so step
+			// until it comes back to the same state.
+			long hash = current.hash();
+			long multiple = period;
+			current.cyclePeriod = multiple; // not to look for cycles meanwhile
+			period = 0;
+			do {
+				stepModel(false);
+				period++;
+			} while (current.hash() != hash && period < multiple);
+		}
+
+		current.cyclePeriod = period;
+		current.cycleStart = start;
+		playing = false;
+		cycles.reset();
+	}
+
+	/**
+	 * Starts looking for cycles over, from the current generation.
+	 */
+	private void forgetCycle() {
+		cycles.reset();
+		cycles.observe(current.hash(), current.stepCount);
+		current.cyclePeriod = 0;
+		current.cycleStart = 0;
+	}
+
+	/**
+	 * Updates a cell of the mirror, recording the change in the history.
+	 */
+	private void updateCurrent(int row, int col, CellState state) {
+		history.record(row * current.ncols + col, current.get(row, col), state);
+		current.set(row, col, state);
+	}
+
+	private void resetStepCount() {
+		current.stepCount = 0;
+		current.stalled = false;
+		forgetCycle();
+	}
+
+	/**
+	 * Puts a model that failed to resize back to the size of the mirror, with the
+	 * cells of the mirror (which was not resized yet).
+	 */
+	private void rollBackResize() {
+		model.resize(current.nrows, current.ncols);
+		sized = true;
+
+		for (int r = 0; r < current.nrows; r++) {
+			for (int c = 0; c < current.ncols; c++) {
+				var state = current.get(r, c);
+				if (state != CellState.DEAD)
+					model.set(r, c, state);
+			}
+		}
+
+		dirty.clear();
+		stale = false;
+		unpublished = true;
+	}
+
+	/**
+	 * Copies the whole world from the model into the mirror (e.g., after an edit
+	 * that didn't report its changes), and records the differences in the
+	 * history.
+	 */
+	private void resync() {
+		for (int r = 0; r < current.nrows; r++) {
+			for (int c = 0; c < current.ncols; c++) {
+				var state = model.get(r, c);
+				if (current.get(r, c) != state)
+					updateCurrent(r, c, state);
+			}
+		}
+
+		dirty.clear();
+		stale = false;
+		history.commit(current.generation, current.stepCount, current);
+	}
+
+	/**
+	 * Brings the mirror up to date after steps that didn't update it, by copying
+	 * only the cells they changed from the model, and records the differences in
+	 * the history.
+	 */
+	private void catchUp() {
+		int ncols = current.ncols;
+
+		for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+			int row = i / ncols;
+			int col = i % ncols;
+			var state = model.get(row, col);
+			if (current.get(row, col) != state)
+				updateCurrent(row, col, state);
+		}
+
+		dirty.clear();
+		stale = false;
+		history.commit(current.generation, current.stepCount, current);
+	}
+
+	/**
+	 * Hands a copy of the current generation over to the FX thread.
+	 */
+	private void publish() {
+		if (stale) {
+			catchUp();
+			detectCycle();
+		}
+
+		current.historyFirst = history.first();
+		current.historyCursor = history.cursor();
+		current.historyEnd = history.end();
+
+		// Only the rows changed since the back buffer was last published get copied.
+		current.stampRows();
+		buffers[back].copyFrom(current);
+		back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+		unpublished = false;
+	}
+}
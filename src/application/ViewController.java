@@ -2,22 +2,29 @@ package application;
 
 import static javafx.scene.input.KeyCombination.keyCombination;
 
-import java.time.Duration;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Supplier;
 
 import application.component.LiveStyleEditor;
+import application.component.SliderBox;
 import application.component.SpinnerBox;
 import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.*;
+import javafx.scene.control.SpinnerValueFactory.IntegerSpinnerValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
+import model.CellState;
+import model.ChangeSet;
 import model.ILife;
+import model.NeighborTable;
 
 /**
  * Controller for the scene graph defined in
@@ -53,11 +60,14 @@ public class ViewController {
 
 	// center stuff
 	@FXML private ScrollPane centerPane;
+	@FXML private Pane worldPane;
 	@FXML private Canvas canvas;
+	@FXML private Canvas overlay;
 
 	// bottom stuff
 	@FXML private Button clearButton;
 	@FXML private Button randomButton;
+	@FXML private Button backButton;
 	@FXML private Button pausePlayButton;
 	@FXML private Button stepButton;
 	@FXML private Button sidebarToggle;
@@ -66,6 +76,12 @@ public class ViewController {
 	// sidebar stuff
 	@FXML private VBox sidebar;
 	@FXML private SpinnerBox tpsControl;
+	@FXML private CheckBox unthrottledCheckBox;
+	@FXML private CheckBox parallelCheckBox;
+	@FXML private SpinnerBox skipControl;
+	@FXML private Button skipButton;
+	@FXML private SliderBox historyControl;
+	@FXML private SpinnerBox historyBudgetControl;
 	@FXML private SpinnerBox cellSizeControl;
 	@FXML private SpinnerBox nrowsControl;
 	@FXML private SpinnerBox ncolsControl;
@@ -77,6 +93,7 @@ public class ViewController {
 
 	@FXML private ComboBox<String> modelCBox;
 	@FXML private Label modelInfo;
+	@FXML private Button findLifeButton;
 
 	@FXML private ColorPicker colorPicker;
 	@FXML private Button styleEditorButton;
@@ -86,27 +103,58 @@ public class ViewController {
 	// ==================
 	private Grid grid;
 
-	// handle for the implementation of the simulation itself
+	// handle for the implementation of the simulation itself. The model is
+	// confined to the worker thread: only use its class and description() here.
 	private ILife model = new model.GraphLife();
+	private String modelName; // as listed in the model selector
+
+	// runs the simulation off the FX thread
+	private final SimulationWorker worker = new SimulationWorker(model);
+
+	// latest generation received from the worker, as displayed by the grid
+	private final Frame frame = new Frame();
+
+	// cells that changed between the displayed frame and the next one
+	private final ChangeSet frameChanges = new ChangeSet();
+
+	// the largest dimensions and the preset dimensions, before limiting them to
+	// what the model can hold
+	private int maxRows;
+	private int maxCols;
+	private List<String> dimensionPresets;
+
+	// for access from the grid
+	Frame getFrame() {
+		return frame;
+	}
 
 	// for access from the grid
-	public ILife getModel() {
-		return model;
+	void setCell(int row, int col, CellState state) {
+		frame.set(row, col, state);
+		worker.set(row, col, state);
 	}
 
 	// ================
 	// Animation stuff
 	// ================
 	private boolean isPlaying;
-	private long timestamp;
 	private int ticksPerSecond = 2;
-	private int stepCount;
+	private long rateTimestamp; // for measuring generations per second
+	private long rateGeneration;
+	private double generationsPerSecond;
+	private long stepCount;
 	private boolean restart;
+	private long cyclePeriod; // of the last cycle reported (0 if none)
+	private long cycleStart;
+	private boolean updatingHistoryControl; // whether a new frame (not the user) moves the slider
+	private boolean restoringSize; // whether the worker already went back to the size being set
 
 	/**
 	 * Performs post-processing of the scene graph after loading it from the FXML.
 	 */
 	public void initialize() {
+		worker.setErrorHandler(this::reportError);
+		worker.start();
 		initCanvasAndGrid();
 		initButtonHandlers();
 		initSidebar();
@@ -128,21 +176,29 @@ public class ViewController {
 	 * Initializes the canvas.
 	 */
 	private void initCanvasAndGrid() {
-		// Bind canvas container dimensions to the canvas dimensions.
-		centerPane.maxWidthProperty().bind(canvas.widthProperty());
-		centerPane.maxHeightProperty().bind(canvas.heightProperty());
+		// Bind canvas container dimensions to the world dimensions (the canvas
+		// itself only covers the viewport).
+		centerPane.maxWidthProperty().bind(worldPane.prefWidthProperty());
+		centerPane.maxHeightProperty().bind(worldPane.prefHeightProperty());
 		// Not sure if this helps with the edges?
-		centerPane.prefViewportWidthProperty().bind(canvas.widthProperty());
-		centerPane.prefViewportHeightProperty().bind(canvas.heightProperty());
+		centerPane.prefViewportWidthProperty().bind(worldPane.prefWidthProperty());
+		centerPane.prefViewportHeightProperty().bind(worldPane.prefHeightProperty());
+		// The overlay always covers the canvas exactly.
+		overlay.widthProperty().bind(canvas.widthProperty());
+		overlay.heightProperty().bind(canvas.heightProperty());
 
 		// subscribe() will also immediately fire and init the grid
 		gridToggleGroup.selectedToggleProperty().subscribe(this::setGrid);
 
+		// Follow the viewport as it scrolls or gets resized.
+		// Note: avoid temptation to use method reference here because `grid` can change
+		centerPane.viewportBoundsProperty().subscribe(bounds -> grid.updateViewport());
+
 		// For debugging. TODO: delete this
 		canvas.setOnMouseMoved(event -> {
 			// Displaying step count takes precedence over the mouse position
-			// during simulation or at the end of a simulation that stalls.
-			if (isPlaying || restart)
+			// during simulation or at the end of a simulation that stalls or cycles.
+			if (isPlaying || restart || cyclePeriod != 0)
 				return;
 
 			int x = (int) event.getX();
@@ -159,11 +215,11 @@ public class ViewController {
 	 */
 	private void setGrid(Toggle selectedToggle) {
 		if (selectedToggle == classicRadioButton) {
-			grid = new Grid.Classic(this, canvas, centerPane);
+			grid = new Grid.Classic(this, canvas, overlay, centerPane);
 			centerPane.getStyleClass().remove("hex-mode");
 		}
 		else {
-			grid = new Grid.Hex(this, canvas, centerPane);
+			grid = new Grid.Hex(this, canvas, overlay, centerPane);
 			centerPane.getStyleClass().add("hex-mode");
 		}
 
@@ -178,42 +234,64 @@ public class ViewController {
 	 * Sets the actions for the main buttons.
 	 */
 	private void initButtonHandlers() {
-		// The timer just calls the model's step() function to advance the
-		// simulation by one step on each tick.
+		/*
+		 * The worker steps the simulation on its own thread (see SimulationWorker).
+		 * The timer just picks up the latest generation it published on each pulse,
+		 * and draws the cells that changed since the last one.
+		 */
 		var timer = new AnimationTimer() {
 			@Override
 			public void handle(long now) {
-				var tick = Duration.ofSeconds(1).dividedBy(ticksPerSecond);
-
-				if ((now - timestamp) > tick.toNanos()) {
-					reactToStep(model.step(grid::setDisplayCell));
-					timestamp = now;
+				var latest = worker.poll();
+
+				if (latest != null) {
+					// Only the visible rows are compared, the others are just copied.
+					if (frame.updateFrom(latest, grid.firstVisibleRow(), grid.lastVisibleRow(),
+					    frameChanges)) {
+						grid.setDisplayCells(frameChanges);
+						grid.flush();
+					}
+					else
+						grid.redraw();
+
+					// Update the rate about once per second.
+					if (now - rateTimestamp >= 1_000_000_000L) {
+						generationsPerSecond = (frame.generation - rateGeneration) * 1e9
+						    / (now - rateTimestamp);
+						rateTimestamp = now;
+						rateGeneration = frame.generation;
+					}
+
+					reactToStep(frame.stepCount, frame.stalled, frame.cyclePeriod, frame.cycleStart);
+					updateHistoryControl();
 				}
 			}
 		};
+		timer.start();
 
 		clearButton.setOnAction(event -> {
 			resetAnimation();
-			model.clear();
+			worker.clear();
+			frame.clear();
 			grid.redraw();
 			debugText.setText("Cleared");
 		});
 
 		randomButton.setOnAction(event -> {
-			model.randomize();
-			grid.redraw();
+			// The grid is redrawn once the worker publishes the new world.
+			worker.randomize();
 			stepCount = 0;
 			restart = false;
 		});
 
 		pausePlayButton.setOnAction(event -> {
 			if (isPlaying) {
-				timer.stop();
+				worker.pause();
 				pausePlayButton.setText("PLAY");
 				stepButton.setDisable(false);
 			}
 			else {
-				timer.start();
+				worker.play();
 				pausePlayButton.setText("PAUSE");
 				stepButton.setDisable(true);
 			}
@@ -222,38 +300,100 @@ public class ViewController {
 		});
 
 		stepButton.setOnAction(event -> {
-			reactToStep(model.step(grid::setDisplayCell));
+			worker.step();
 		});
+
+		backButton.setOnAction(event -> {
+			if (isPlaying)
+				pausePlayButton.fire();
+
+			worker.back();
+		});
+
+		backButton.setDisable(true); // nothing to rewind yet
+	}
+
+	/**
+	 * Shows the position of the latest frame in the history.
+	 */
+	private void updateHistoryControl() {
+		backButton.setDisable(frame.historyCursor == frame.historyFirst);
+
+		var slider = historyControl.slider;
+
+		// Don't fight the user while they are dragging the slider.
+		if (slider.isValueChanging())
+			return;
+
+		// The slider counts entries back from the newest one.
+		updatingHistoryControl = true;
+		slider.setMin(frame.historyFirst - frame.historyEnd);
+		slider.setMax(0);
+		slider.setValue(frame.historyCursor - frame.historyEnd);
+		updatingHistoryControl = false;
 	}
 
 	/**
 	 * Perform miscellaneous actions on each step. For now, this just examines the
-	 * step count and also halts the animation if it stalls (although it currently
-	 * does not detect loops/cycles.
+	 * step count and also halts the animation if it stalls or enters a cycle.
+	 *
+	 * @param steps      number of steps since the simulation was last reset or
+	 *                   stalled (according to the latest frame)
+	 * @param stalled    whether the last step did not change the world
+	 * @param period     period of the cycle the world is in (0 if none)
+	 * @param cycleStart step count at which the cycle was first seen
 	 */
-	private void reactToStep(boolean change) {
-		if (restart) {
-			stepCount = 0;
-			restart = false;
-		}
+	private void reactToStep(long steps, boolean stalled, long period, long cycleStart) {
+		if (period != 0 && (period != cyclePeriod || cycleStart != this.cycleStart)) {
+			// The worker stops by itself when it detects a new cycle (and lets the user
+			// play on afterwards), so just update the buttons.
+			if (isPlaying)
+				pausePlayButton.fire();
 
-		if (change) {
-			stepCount++;
-			debugText.setText("Step count: " + stepCount);
+			debugText.setText("Cycle of period %d from step %d".formatted(period, cycleStart));
+		}
+		else if (!stalled) {
+			if (steps > 0 && steps != stepCount) {
+				var text = "Step count: " + steps;
+				if (worker.isUnthrottled() && isPlaying)
+					text = "Step count: %d (%,.0f gen/s)".formatted(steps, generationsPerSecond);
+				if (period != 0)
+					text += ", in a cycle of period " + period;
+
+				debugText.setText(text);
+			}
 		}
 		else {
-			// Stop animating if the simulation stalls (reaches a fixed point).
+			// The worker stops by itself if the simulation stalls (reaches a fixed
+			// point), so just update the buttons.
 			if (isPlaying)
 				pausePlayButton.fire();
 
-			// Reset the step count next time.
-			restart = true;
-
-			// TODO: detect cycles and react accordingly
-			if (stepCount > 0)
-				debugText.setText("No movement after " + stepCount + " steps");
+			if (!restart && steps > 0)
+				debugText.setText("No movement after " + steps + " steps");
 		}
 
+		cyclePeriod = period;
+		this.cycleStart = cycleStart;
+
+		stepCount = steps;
+		// The step count is reset on the next step.
+		restart = stalled;
+	}
+
+	/**
+	 * Reports an error of the worker (which stopped playing by itself). Called on
+	 * the worker thread.
+	 */
+	private void reportError(Throwable error) {
+		var message = error.getMessage() != null ? error.getMessage() : error.toString();
+
+		Platform.runLater(() -> {
+			if (isPlaying)
+				pausePlayButton.fire();
+
+			debugText.setText("Error: " + message);
+		});
 	}
 
 	void resetAnimation() {
@@ -262,22 +402,50 @@ public class ViewController {
 			pausePlayButton.fire();
 
 		assert !isPlaying;
-		timestamp = 0;
 		stepCount = 0;
 		restart = false;
 	}
 
+	/**
+	 * Sizes the (scrollable) world pane to fit the whole world.
+	 */
+	void setWorldSize(double width, double height) {
+		worldPane.setMinSize(width, height);
+		worldPane.setPrefSize(width, height);
+		worldPane.setMaxSize(width, height);
+	}
+
 	void recenterCanvas() {
 		centerPane.setHvalue(0.5);
 		centerPane.setVvalue(0.5);
 	}
 
 	void resizeModel() {
-		model.resize(grid.nrows(), grid.ncols());
+		if (!restoringSize) {
+			// If the model can't take the new size, the worker goes back to the old one.
+			int nrows = frame.nrows;
+			int ncols = frame.ncols;
+			worker.resize(grid.nrows(), grid.ncols(),
+			    () -> Platform.runLater(() -> restoreSize(nrows, ncols)));
+		}
+
+		frame.resize(grid.nrows(), grid.ncols());
 		resetAnimation();
 		grid.redraw();
 	}
 
+	/**
+	 * Puts the grid and the size controls back to the size that the worker went
+	 * back to, after it failed to resize the model. The worker publishes the
+	 * restored world afterwards.
+	 */
+	private void restoreSize(int nrows, int ncols) {
+		restoringSize = true;
+		nrowsControl.setValue(nrows);
+		ncolsControl.setValue(ncols);
+		restoringSize = false;
+	}
+
 	private void initSidebar() {
 		initGridSizeControls();
 		initTpsControls();
@@ -296,23 +464,82 @@ public class ViewController {
 	private void initTpsControls() {
 		tpsControl.subscribe(newValue -> {
 			ticksPerSecond = newValue;
+			worker.setTicksPerSecond(newValue);
 		});
 
 		// See FXML for initial value.
 		ticksPerSecond = tpsControl.spinner.getValue();
+		worker.setTicksPerSecond(ticksPerSecond);
+
+		// Unthrottled mode ignores the ticks per second and runs as fast as the
+		// model allows, while the grid still redraws at the display's refresh rate.
+		unthrottledCheckBox.selectedProperty().subscribe(selected -> {
+			worker.setUnthrottled(selected);
+			tpsControl.setDisable(selected);
+		});
+
+		unthrottledCheckBox.setTooltip(newTooltip("Run as many generations per second as possible (U)"));
+
+		// Models that support it compute each step in bands of rows on several
+		// threads (the setting carries over to the next model, see
+		// initModelSelectorBox()).
+		parallelCheckBox.selectedProperty().subscribe(selected -> {
+			worker.execute(activeModel -> activeModel.setParallel(selected));
+		});
+
+		parallelCheckBox.setTooltip(newTooltip("Compute each step on several threads"));
+		parallelCheckBox.setDisable(!model.supportsParallel());
+
+		// Skip ahead without drawing (or notifying) the intermediate generations.
+		skipButton.setOnAction(e -> {
+			worker.skip(skipControl.getValue());
+		});
+
+		skipButton.setTooltip(newTooltip("Skip generations (Shift+F)"));
+
+		initHistoryControls();
+	}
+
+	private void initHistoryControls() {
+		backButton.setTooltip(newTooltip("Rewind one step or edit (B or <)"));
+
+		historyControl.slider.valueProperty().addListener((observable, oldValue, newValue) -> {
+			if (updatingHistoryControl)
+				return;
+
+			if (isPlaying)
+				pausePlayButton.fire();
+
+			worker.seek(frame.historyEnd + Math.round(newValue.doubleValue()));
+		});
+
+		// Models that can't be rewound have no history (see ILife.isRewindable()).
+		historyControl.setDisable(!model.isRewindable());
+
+		// 0 disables the history.
+		historyBudgetControl.subscribe(megabytes -> {
+			worker.setHistoryBudget(megabytes * 1_000_000L);
+		});
 	}
 
 	private void initGridSizeControls() {
 		assert grid != null : "must call initCanvasAndGrid() first";
 
+		// See FXML for the largest dimensions (for the models that can hold them).
+		maxRows = ((IntegerSpinnerValueFactory) nrowsControl.spinner.getValueFactory()).getMax();
+		maxCols = ((IntegerSpinnerValueFactory) ncolsControl.spinner.getValueFactory()).getMax();
+		dimensionPresets = List.copyOf(gridDimensionsComboBox.getItems());
+
 		nrowsControl.subscribe(newValue -> {
 			grid.setNumRows(newValue);
 			gridDimensionsComboBox.setValue(newValue + "x" + ncolsControl.getValue());
+			updateSizeLimits();
 		});
 
 		ncolsControl.subscribe(newValue -> {
 			grid.setNumCols(newValue);
 			gridDimensionsComboBox.setValue(nrowsControl.getValue() + "x" + newValue);
+			updateSizeLimits();
 		});
 
 		// Note: avoid temptation to use method reference here because `grid` can change
@@ -340,58 +567,131 @@ public class ViewController {
 		});
 	}
 
+	/**
+	 * Only offers the dimensions that the model can hold (see
+	 * {@link ILife#maxCells()}), shrinking the grid if needed.
+	 */
+	private void fitSizeToModel() {
+		long maxCells = model.maxCells();
+
+		gridDimensionsComboBox.getItems().setAll(dimensionPresets.stream().filter(preset -> {
+			var a = preset.split("x");
+			return Long.parseLong(a[0]) * Long.parseLong(a[1]) <= maxCells;
+		}).toList());
+
+		updateSizeLimits();
+	}
+
+	/**
+	 * Limits the rows and columns so that their product fits in the model. Lowering
+	 * a limit below the current value also lowers the value, which resizes the
+	 * grid.
+	 */
+	private void updateSizeLimits() {
+		long maxCells = model.maxCells();
+		var rows = (IntegerSpinnerValueFactory) nrowsControl.spinner.getValueFactory();
+		var cols = (IntegerSpinnerValueFactory) ncolsControl.spinner.getValueFactory();
+
+		rows.setMax((int) Math.min(maxRows, maxCells / ncolsControl.getValue()));
+		cols.setMax((int) Math.min(maxCols, maxCells / nrowsControl.getValue()));
+	}
+
 	private void initModelSelectorBox() {
-		var table = new LinkedHashMap<String, Class<? extends ILife>>();
-
-		table.put("GraphLife", model.GraphLife.class);
-		table.put("SimpleLife", model.SimpleLife.class);
-		table.put("KnightLife", model.KnightLife.class);
-		table.put("HexLife", model.HexLife.class);
-		table.put("LifeInColor", model.LifeInColor.class);
-		table.put("RockPaperScissorLife", model.RockPaperScissorLife.class);
-		table.put("VampireLife", model.VampireLife.class);
-		table.put("ZombieLife", model.ZombieLife.class);
-		table.put("AmoebaLife", model.AmoebaLife.class);
+		var table = new LinkedHashMap<String, Supplier<ILife>>();
+
+		table.put("GraphLife", model.GraphLife::new);
+		table.put("RuleLife", model.RuleLife::new);
+		table.put("SimpleLife", model.SimpleLife::new);
+		table.put("BitLife", model.BitLife::new);
+		table.put("HashLife", model.HashLife::new);
+		table.put("SparseLife", model.SparseLife::new);
+		table.put("SparseLife (unbounded)", () -> new model.SparseLife(false));
+		table.put("KnightLife", model.KnightLife::new);
+		table.put("HexLife", model.HexLife::new);
+		table.put("LifeInColor", model.LifeInColor::new);
+		table.put("RockPaperScissorLife", model.RockPaperScissorLife::new);
+		table.put("VampireLife", model.VampireLife::new);
+		table.put("ZombieLife", model.ZombieLife::new);
+		table.put("AmoebaLife", model.AmoebaLife::new);
 
 		var items = modelCBox.getItems();
 
 		for (var name : table.keySet())
 			items.add(name);
 
+		// Models whose grid is a window onto an unbounded world can move it onto the
+		// live cells (which may have left it), then the canvas scrolls to them.
+		findLifeButton.setOnAction(event -> {
+			worker.centerOnLife();
+			recenterCanvas();
+		});
+
+		findLifeButton.setTooltip(newTooltip("Move the window onto the live cells (Shift+O)"));
+		findLifeButton.setDisable(!model.hasViewport());
+
 		// Set the current value to the current model's class.
-		String currentSelection = model.getClass().getSimpleName();
-		assert table.containsKey(currentSelection) : currentSelection;
-		modelCBox.setValue(currentSelection);
+		modelName = model.getClass().getSimpleName();
+		assert table.containsKey(modelName) : modelName;
+		modelCBox.setValue(modelName);
 
 		// Update the model whenever the combo box value changes.
 		modelCBox.setOnAction(event -> {
-			var className = modelCBox.getValue();
-			var selectedClass = table.get(className);
+			var selectedName = modelCBox.getValue();
 
-			if (selectedClass.equals(model.getClass())) {
+			if (selectedName.equals(modelName)) {
 				debugText.setText("No change");
 				return;
 			}
 
-			try {
-				model = selectedClass.getConstructor().newInstance();
+			modelName = selectedName;
+			model = table.get(selectedName).get();
 
-				var desc = model.description();
+			model.setParallel(parallelCheckBox.isSelected());
+			parallelCheckBox.setDisable(!model.supportsParallel());
+			findLifeButton.setDisable(!model.hasViewport());
+			historyControl.setDisable(!model.isRewindable());
 
-				if (desc != null)
-					modelInfo.setText(desc);
+			var desc = model.description();
 
-			}
-			catch (Exception e) {
-				e.printStackTrace();
-			}
+			if (desc != null)
+				modelInfo.setText(desc);
+
+			// Hand the new model over to the worker (which doesn't step it until it is
+			// resized below).
+			worker.setModel(model);
 
-			resizeModel();
+			// Shrinking the grid to fit the model already resizes it.
+			int nrows = grid.nrows();
+			int ncols = grid.ncols();
+			fitSizeToModel();
+
+			if (grid.nrows() == nrows && grid.ncols() == ncols)
+				resizeModel();
+
+			updateCacheStats();
 		});
 
 		// Should bind width to (sidebar width - insets), but this will do for now.
 		modelInfo.maxWidthProperty().bind(sidebar.widthProperty().subtract(20));
 		modelInfo.setText(model.description());
+		modelInfo.setTooltip(newTooltip(""));
+		updateCacheStats();
+
+		fitSizeToModel();
+	}
+
+	/**
+	 * Shows the statistics of the neighbor table cache in the tooltip of the model
+	 * description (rather than in the status line, which belongs to the
+	 * simulation).
+	 */
+	private void updateCacheStats() {
+		// The neighbor tables are built by the worker, so report once it's done.
+		worker.execute(newModel -> {
+			var message = "Neighbor table cache: %d hits, %d misses"
+			    .formatted(NeighborTable.cacheHits(), NeighborTable.cacheMisses());
+			Platform.runLater(() -> modelInfo.getTooltip().setText(message));
+		});
 	}
 
 	private void initColorMenu() {
@@ -443,10 +743,12 @@ public class ViewController {
 
 		acc.put(keyCombination("Shortcut+P"), pausePlayButton::requestFocus);
 		acc.put(keyCombination("P"), pausePlayButton::fire);
-		// acc.put(keyCombination("Shift+Comma"), backButton::fire); // '<'
-		// acc.put(keyCombination("B"), backButton::fire);
+		acc.put(keyCombination("Shift+Comma"), backButton::fire); // '<'
+		acc.put(keyCombination("B"), backButton::fire);
 		acc.put(keyCombination("Shift+Period"), stepButton::fire); // '>'
 		acc.put(keyCombination("F"), stepButton::fire);
+		acc.put(keyCombination("Shift+F"), skipButton::fire);
+		acc.put(keyCombination("U"), unthrottledCheckBox::fire);
 		acc.put(keyCombination("Shift+C"), clearButton::fire);
 		acc.put(keyCombination("Shift+R"), randomButton::fire);
 
@@ -471,6 +773,8 @@ public class ViewController {
 			recenterCanvas();
 		});
 
+		acc.put(keyCombination("Shift+O"), findLifeButton::fire);
+
 		acc.put(keyCombination("Ignore Shortcut+T"), () -> {
 			sidebar.setManaged(!sidebar.isManaged());
 			sidebar.setVisible(!sidebar.isVisible());
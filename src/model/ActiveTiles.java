@@ -0,0 +1,137 @@
+package model;
+
+/**
+ * Tracks which parts of a wrap-around grid can change on the next step.
+ * <p>
+ * The grid is divided into square tiles. A cell can only change if something
+ * in its 3x3 neighborhood changed on the previous step, so whenever a cell
+ * changes, every tile overlapping its neighborhood is marked. A step then only
+ * needs to visit the cells of the marked tiles, which makes its cost
+ * proportional to the amount of activity rather than to the area of the world
+ * (still lifes and empty space are skipped entirely).
+ * <p>
+ * Only suitable for models whose neighbors are within one row/column of the
+ * cell (e.g., the Moore neighborhood).
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class ActiveTiles {
+	static final int TILE_SIZE = 16;
+
+	private final int nrows;
+	private final int ncols;
+	private final int tileRows;
+	private final int tileCols;
+
+	private final boolean[] marked; // whether a tile is in the marked list
+	private int[] markedList; // tiles to visit on the next step
+	private int markedCount;
+	private int[] activeList; // tiles to visit on the current step
+	private int activeCount;
+
+	ActiveTiles(int nrows, int ncols) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.tileRows = (nrows + TILE_SIZE - 1) / TILE_SIZE;
+		this.tileCols = (ncols + TILE_SIZE - 1) / TILE_SIZE;
+
+		this.marked = new boolean[tileRows * tileCols];
+		this.markedList = new int[marked.length];
+		this.activeList = new int[marked.length];
+
+		markAll();
+	}
+
+	/**
+	 * Marks every tile, e.g., after the whole world was modified.
+	 */
+	void markAll() {
+		for (int tile = 0; tile < marked.length; tile++)
+			mark(tile);
+	}
+
+	/**
+	 * Marks the tiles overlapping the 3x3 neighborhood of a cell (with
+	 * wrap-around).
+	 */
+	void markCell(int row, int col) {
+		int up = ((row - 1 + nrows) % nrows) / TILE_SIZE;
+		int middle = row / TILE_SIZE;
+		int down = ((row + 1) % nrows) / TILE_SIZE;
+
+		int left = ((col - 1 + ncols) % ncols) / TILE_SIZE;
+		int center = col / TILE_SIZE;
+		int right = ((col + 1) % ncols) / TILE_SIZE;
+
+		markRow(up, left, center, right);
+		if (middle != up)
+			markRow(middle, left, center, right);
+		if (down != middle && down != up)
+			markRow(down, left, center, right);
+	}
+
+	private void markRow(int tileRow, int left, int center, int right) {
+		int base = tileRow * tileCols;
+
+		mark(base + left);
+		mark(base + center);
+		mark(base + right);
+	}
+
+	private void mark(int tile) {
+		if (!marked[tile]) {
+			marked[tile] = true;
+			markedList[markedCount++] = tile;
+		}
+	}
+
+	/**
+	 * Starts a step: the marked tiles become the active ones, and marking starts
+	 * over for the following step.
+	 */
+	void beginStep() {
+		var temp = activeList;
+		activeList = markedList;
+		activeCount = markedCount;
+		markedList = temp;
+		markedCount = 0;
+
+		for (int i = 0; i < activeCount; i++)
+			marked[activeList[i]] = false;
+	}
+
+	/**
+	 * @return the number of tiles to visit in the current step.
+	 */
+	int activeCount() {
+		return activeCount;
+	}
+
+	/**
+	 * @return the i-th tile to visit in the current step.
+	 */
+	int activeTile(int i) {
+		return activeList[i];
+	}
+
+	/** First row (inclusive) of a tile */
+	int firstRow(int tile) {
+		return (tile / tileCols) * TILE_SIZE;
+	}
+
+	/** Last row (exclusive) of a tile */
+	int lastRow(int tile) {
+		return Math.min(firstRow(tile) + TILE_SIZE, nrows);
+	}
+
+	/** First column (inclusive) of a tile */
+	int firstCol(int tile) {
+		return (tile % tileCols) * TILE_SIZE;
+	}
+
+	/** Last column (exclusive) of a tile */
+	int lastCol(int tile) {
+		return Math.min(firstCol(tile) + TILE_SIZE, ncols);
+	}
+}
@@ -2,9 +2,8 @@ package model;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 
-import edu.princeton.cs.algs4.BreadthFirstPaths;
-import edu.princeton.cs.algs4.Graph;
 import edu.princeton.cs.algs4.Queue;
 
 /**
@@ -15,13 +14,17 @@ import edu.princeton.cs.algs4.Queue;
  * @author Paul Nguyen
  */
 public class AmoebaLife implements ILife {
-	private Graph world;
+	private NeighborTable world;
 	private CellState[] cells; // row-col indexed
+	private CellState[] previous; // cells as of the start of the step (for reporting changes)
+	private final StateCounts counts = new StateCounts();
 	private int[][] amoebaInfo; // row-col indexed
+	private int[] distTo; // distance to the nearest food, for every cell
+	private int[] bfsQueue; // scratch space for breadth-first searches
 	private int nrows;
 	private int ncols;
 	private Queue<Cell> queue = new Queue<>(); // Stores cell updates
-	private ArrayList<Integer> alreadyMoved; // Stores already moved cells
+	private BitSet alreadyMoved; // Cells already moved this step (row-col indexed)
 	private static final int GROWTH_STAGE_1 = 10; // 5 wide stage
 	private static final int GROWTH_STAGE_2 = 20; // 7 wide stage
 	private static final int GROWTH_STAGE_3 = 30; // Cell splitting stage
@@ -31,17 +34,17 @@ public class AmoebaLife implements ILife {
 
 	@Override
 	public void resize(int nrows, int ncols) {
-		this.world = new Graph(nrows * ncols);
+		this.world = NeighborTable.of(NeighborTable.Kind.MOORE, nrows, ncols, world);
 		this.cells = new CellState[nrows * ncols];
+		this.previous = new CellState[nrows * ncols];
+		this.distTo = new int[nrows * ncols];
+		this.bfsQueue = new int[nrows * ncols];
 		this.amoebaInfo = new int[nrows * ncols][2];
+		this.alreadyMoved = new BitSet(nrows * ncols);
 		this.nrows = nrows;
 		this.ncols = ncols;
 
 		clear();
-
-		// Initialize edges/neighbors
-		for (int current = 0; current < cells.length; current++)
-			initializeNeighbors(current);
 	}
 
 	/**
@@ -75,44 +78,10 @@ public class AmoebaLife implements ILife {
 		return index % ncols;
 	}
 
-	/**
-	 * Adds neighbor edges to given cell.
-	 *
-	 * @param index
-	 */
-	private void initializeNeighbors(int index) {
-		int row = convertToRow(index);
-		int col = convertToCol(index);
-
-		int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
-		int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
-
-		for (int r : rowOffsets)
-			for (int c : colOffsets)
-				if (r != row || c != col) { // Disclude current cell
-					int neighbor = convertToIndex(r, c);
-					if (hasEdge(index, neighbor) != true)
-						world.addEdge(index, neighbor);
-				}
-	}
-
-	/**
-	 * Checks if vertex already linked to neighbor.
-	 *
-	 * @param index
-	 * @param neighbor
-	 * @return boolean true/false linked to neighbor
-	 */
-	private boolean hasEdge(int index, int neighbor) {
-		for (int n : world.adj(index))
-			if (n == neighbor)
-				return true;
-		return false;
-	}
-
 	@Override
 	public void clear() {
 		Arrays.fill(cells, CellState.DEAD);
+		counts.reset(cells.length);
 
 		// Initialize amoeba growth count and hunger
 		for (int i = 0; i < amoebaInfo.length; i++) {
@@ -128,11 +97,11 @@ public class AmoebaLife implements ILife {
 		// 3 Nuclei
 		for (int i = 0; i < 3; i++) {
 			int randomInt = RANDOM.nextInt(nrows * ncols);
-			cells[randomInt] = NUCLEUS;
+			setCell(randomInt, NUCLEUS);
 			setGrowthStage(convertToRow(randomInt), convertToCol(randomInt));
 		}
 		// 1 Food
-		cells[RANDOM.nextInt(nrows * ncols)] = FOOD;
+		setCell(RANDOM.nextInt(nrows * ncols), FOOD);
 	}
 
 	/**
@@ -215,7 +184,7 @@ public class AmoebaLife implements ILife {
 	private void fillBody(int row, int col) {
 		int cell = convertToIndex(row, col);
 		if (cells[cell] != NUCLEUS) {
-			cells[cell] = BODY;
+			setCell(cell, BODY);
 			queue.enqueue(new Cell(row, col, BODY));
 		}
 	}
@@ -227,29 +196,39 @@ public class AmoebaLife implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
-		cells[convertToIndex(row, col)] = state;
+		setCell(convertToIndex(row, col), state);
+	}
+
+	private void setCell(int current, CellState state) {
+		counts.change(cells[current], state);
+		cells[current] = state;
 	}
 
 	@Override
 	public boolean step(Callback action) {
-		ArrayList<Integer> foodIndexes = new ArrayList<>();
-		alreadyMoved = new ArrayList<>(); // Stores movements to prevent multiple movements in one
-		                                  // step.
-		int nucleusCount = 0;
+		alreadyMoved.clear(); // Prevents multiple movements in one step.
+
+		// The cells are updated (and read back) as the step is computed, so keep the
+		// previous generation around to tell what changed in the end.
+		System.arraycopy(cells, 0, previous, 0, cells.length);
+
+		long nucleusCount = counts.get(NUCLEUS);
 		int deadCellsSkipped = 0; // Counts dead cells skipped each step.
 		int noMoreFood = 0; // Counts steps without food for population control.
 
-		for (int i = 0; i < cells.length; i++) {
-			if (cells[i] == NUCLEUS)
-				nucleusCount++;
-			if (cells[i] == FOOD)
-				foodIndexes.add(i);
-		}
+		/*
+		 * Find how far the nearest food is from every cell, once for all the nuclei
+		 * (rather than searching from each nucleus, and from each of its possible
+		 * moves). Like the nuclei, this looks at the food as of the start of the step.
+		 */
+		boolean anyFood = counts.get(FOOD) > 0;
+		if (anyFood)
+			world.nearestSourceSearch(cell -> cells[cell] == FOOD, distTo, bfsQueue);
 
 		// Calculate needed updates:
 		for (int current = 0; current < cells.length; current++) {
 			// Skip cells that have already been moved/dealt with.
-			if (!alreadyMoved.contains(current)) {
+			if (!alreadyMoved.get(current)) {
 				int row = convertToRow(current);
 				int col = convertToCol(current);
 
@@ -280,8 +259,8 @@ public class AmoebaLife implements ILife {
 
 							// Find whether cell is alone.
 							boolean alone = true;
-							for (Integer neighbor : world.adj(current))
-								if (cells[neighbor] != CellState.DEAD)
+							for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++)
+								if (cells[world.targets[n]] != CellState.DEAD)
 									alone = false;
 
 							// Chance of becoming food.
@@ -295,17 +274,12 @@ public class AmoebaLife implements ILife {
 				// Else cell is nucleus.
 				else {
 					// If there's food to get, target/eat it.
-					if (foodIndexes.size() > 0) {
+					if (anyFood) {
 						// Find closest food.
-						BreadthFirstPaths bfs = new BreadthFirstPaths(world, current);
-						int target = foodIndexes.get(0);
-						int targetDistance = bfs.distTo(target);
-
-						for (int food : foodIndexes)
-							if (bfs.distTo(food) < targetDistance) {
-								target = food;
-								targetDistance = bfs.distTo(food);
-							}
+						int targetDistance = distTo[current];
+						int target = current;
+						while (distTo[target] > 0)
+							target = world.downhill(target, distTo);
 
 						// If too big, split into 2 nucleus cells.
 						if (amoebaInfo[current][0] > GROWTH_STAGE_3) {
@@ -326,7 +300,7 @@ public class AmoebaLife implements ILife {
 							int twinRow = convertToRow(twinPosition);
 							int twinCol = convertToCol(twinPosition);
 
-							cells[twinPosition] = NUCLEUS;
+							setCell(twinPosition, NUCLEUS);
 							queue.enqueue(new Cell(twinRow, twinCol, NUCLEUS));
 							setGrowthStage(twinRow, twinCol);
 							amoebaInfo[twinPosition][0] = 1;
@@ -353,13 +327,11 @@ public class AmoebaLife implements ILife {
 							// Get all possible positions
 							ArrayList<Integer> availablePositions = getPossiblePositions(current);
 
-							// Pick the closest available position to the target.
+							// Pick the closest available position to the (nearest) food.
 							int currentDistance = targetDistance;
 							for (int neighbor : availablePositions) {
-								BreadthFirstPaths neighborPath = new BreadthFirstPaths(world,
-								    neighbor);
-								if (currentDistance > neighborPath.distTo(target)) {
-									currentDistance = neighborPath.distTo(target);
+								if (currentDistance > distTo[neighbor]) {
+									currentDistance = distTo[neighbor];
 									if (bestPosition != current)
 										alternativePosition = bestPosition;
 									bestPosition = neighbor;
@@ -381,7 +353,7 @@ public class AmoebaLife implements ILife {
 						// babies randomly until level.
 						if ((nucleusCount > (nrows * ncols) / 50 && amoebaInfo[current][0] == 1)
 						    || (noMoreFood > 50 && amoebaInfo[current][0] == 1)) {
-							cells[current] = CellState.DEAD;
+							setCell(current, CellState.DEAD);
 							queue.enqueue(new Cell(row, col, CellState.DEAD));
 							nucleusCount--;
 							noMoreFood = 0;
@@ -405,16 +377,16 @@ public class AmoebaLife implements ILife {
 
 		// Make needed updates (done afterwards to prevent invalid updates)
 		Arrays.fill(cells, CellState.DEAD);
+		counts.reset(cells.length);
 		while (!queue.isEmpty()) {
 			Cell cell = queue.dequeue();
-			// Invoke callback if a new state differs from old state
-			if (cell.state() != get(cell.row(), cell.col())) {
-				action.invoke(cell.row(), cell.col(), cell.state());
-			}
 			set(cell.row(), cell.col(), cell.state());
 		}
+
+		// Invoke callback for every cell whose new state differs from its old state
 		for (int current = 0; current < cells.length; current++)
-			action.invoke(convertToRow(current), convertToCol(current), cells[current]);
+			if (cells[current] != previous[current])
+				action.invoke(convertToRow(current), convertToCol(current), cells[current]);
 
 		return populationCount() > 0; // Game designed to go on as long as Amoeba still alive.
 	}
@@ -431,7 +403,7 @@ public class AmoebaLife implements ILife {
 
 		amoebaInfo[current][0]++; // Add to size.
 		// Kill the food.
-		cells[target] = CellState.DEAD;
+		setCell(target, CellState.DEAD);
 		queue.enqueue(new Cell(convertToRow(target), convertToCol(target), CellState.DEAD));
 		// Keep the nucleus.
 		queue.enqueue(new Cell(row, col, NUCLEUS));
@@ -448,8 +420,8 @@ public class AmoebaLife implements ILife {
 	private ArrayList<Integer> getPossiblePositions(int current) {
 		ArrayList<Integer> availablePositions = new ArrayList<Integer>();
 
-		var neighbors = world.adj(current);
-		for (int neighbor : neighbors) {
+		for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++) {
+			int neighbor = world.targets[n];
 			if (cells[neighbor] != NUCLEUS)
 				availablePositions.add(neighbor);
 		}
@@ -470,30 +442,41 @@ public class AmoebaLife implements ILife {
 		int newCol = convertToCol(nextPosition);
 
 		// Move nucleus cell.
-		cells[current] = BODY;
+		setCell(current, BODY);
 		queue.enqueue(new Cell(newRow, newCol, BODY));
-		cells[nextPosition] = NUCLEUS;
+		setCell(nextPosition, NUCLEUS);
 		queue.enqueue(new Cell(newRow, newCol, NUCLEUS));
 		// Set body cells.
 		setGrowthStage(newRow, newCol);
 		// Transfer info and mark that cell has already been moved.
 		moveAmoebaInfo(current, nextPosition);
-		alreadyMoved.add(nextPosition);
+		alreadyMoved.set(nextPosition);
 	}
 
 	@Override
 	public void forAllLife(Callback action) {
 		for (int current = 0; current < cells.length; current++)
-			action.invoke(convertToRow(current), convertToCol(current), cells[current]);
+			if (cells[current] != CellState.DEAD)
+				action.invoke(convertToRow(current), convertToCol(current), cells[current]);
 	}
 
 	@Override
 	public long populationCount() {
-		long count = 0;
-		for (var state : cells)
-			if (state == NUCLEUS)
-				count++;
-		return count;
+		return counts.get(NUCLEUS);
+	}
+
+	@Override
+	public long populationCount(CellState state) {
+		return counts.get(state);
+	}
+
+	/**
+	 * The growth and hunger of each amoeba are not part of the cells, so setting
+	 * cells back does not rewind them.
+	 */
+	@Override
+	public boolean isRewindable() {
+		return false;
 	}
 
 	/**
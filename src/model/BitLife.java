@@ -0,0 +1,229 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A bit-packed implementation of Conway's Game of Life (classic ruleset
+ * B3/S23).
+ * <p>
+ * Each row of the world is stored as an array of {@code long} words, one bit
+ * per cell, so that 64 cells can be updated at once using bitwise operations
+ * instead of counting neighbors cell by cell.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class BitLife implements ILife {
+	private long[][] world; // bit c % 64 of world[r][c / 64] is the cell at (r, c)
+	private long[][] next; // next generation, swapped with world after each step
+	private long[][] west; // scratch: each row shifted so a bit sees its west neighbor
+	private long[][] east; // scratch: each row shifted so a bit sees its east neighbor
+	private int nrows;
+	private int ncols;
+	private int nwords; // words per row
+	private long lastWordMask; // valid bits of the last word in each row
+	private long population; // number of bits set, kept up to date
+
+	@Override
+	public void resize(int nrows, int ncols) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.nwords = (ncols + 63) / 64;
+		this.lastWordMask = (ncols % 64 == 0) ? -1L : (1L << (ncols % 64)) - 1;
+
+		this.world = new long[nrows][nwords];
+		this.next = new long[nrows][nwords];
+		this.west = new long[nrows][nwords];
+		this.east = new long[nrows][nwords];
+		this.population = 0;
+	}
+
+	@Override
+	public void clear() {
+		for (var row : world)
+			Arrays.fill(row, 0);
+
+		population = 0;
+	}
+
+	@Override
+	public void randomize() {
+		population = 0;
+
+		for (var row : world) {
+			for (int w = 0; w < nwords; w++)
+				row[w] = RANDOM.nextLong();
+
+			row[nwords - 1] &= lastWordMask;
+
+			for (long word : row)
+				population += Long.bitCount(word);
+		}
+	}
+
+	@Override
+	public CellState get(int row, int col) {
+		if ((world[row][col >>> 6] & (1L << col)) != 0)
+			return CellState.ALIVE;
+		else
+			return CellState.DEAD;
+	}
+
+	@Override
+	public void set(int row, int col, CellState state) {
+		// Note: Java only uses the low 6 bits of the shift distance for longs.
+		long word = world[row][col >>> 6];
+
+		if (state == CellState.ALIVE)
+			world[row][col >>> 6] |= (1L << col);
+		else
+			world[row][col >>> 6] &= ~(1L << col);
+
+		population += Long.bitCount(world[row][col >>> 6]) - Long.bitCount(word);
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		// Precompute the horizontally shifted copies of every row.
+		for (int r = 0; r < nrows; r++) {
+			shiftWest(world[r], west[r]);
+			shiftEast(world[r], east[r]);
+		}
+
+		boolean worldChanged = false;
+
+		for (int r = 0; r < nrows; r++) {
+			int up = (r - 1 + nrows) % nrows;
+			int down = (r + 1) % nrows;
+
+			long[] row = world[r];
+			long[] nextRow = next[r];
+
+			for (int w = 0; w < nwords; w++) {
+				/*
+				 * Count the 8 neighbors of all 64 cells in this word at once with a network
+				 * of bit-sliced full adders. Each intermediate value holds one bit of a
+				 * binary count for every cell (e.g., s0 is the ones bit of every count).
+				 */
+				long n1 = west[up][w], n2 = world[up][w], n3 = east[up][w];
+				long n4 = west[r][w], n5 = east[r][w];
+				long n6 = west[down][w], n7 = world[down][w], n8 = east[down][w];
+
+				// 3 + 3 + 2 inputs --> three (ones, twos) pairs
+				long xa = n1 ^ n2;
+				long sa = xa ^ n3, ca = (n1 & n2) | (xa & n3);
+				long xb = n4 ^ n5;
+				long sb = xb ^ n6, cb = (n4 & n5) | (xb & n6);
+				long sc = n7 ^ n8, cc = n7 & n8;
+
+				// Sum the ones bits.
+				long xd = sa ^ sb;
+				long s0 = xd ^ sc, cd = (sa & sb) | (xd & sc);
+
+				// Sum the four twos bits --> s1 plus two (carry) fours bits u and v.
+				long xe = ca ^ cb;
+				long te = xe ^ cc, u = (ca & cb) | (xe & cc);
+				long s1 = te ^ cd, v = te & cd;
+
+				/*
+				 * A cell lives on if its count is 2 or 3 (i.e., twos bit set, no fours or
+				 * eights) and either the ones bit is set or the cell is already alive.
+				 */
+				long alive = row[w];
+				long result = s1 & ~(u | v) & (s0 | alive);
+
+				if (w == nwords - 1)
+					result &= lastWordMask;
+
+				nextRow[w] = result;
+
+				// Notify the caller of every cell that flipped.
+				long changed = result ^ alive;
+
+				if (changed != 0) {
+					worldChanged = true;
+					population += Long.bitCount(result) - Long.bitCount(alive);
+
+					while (changed != 0) {
+						int bit = Long.numberOfTrailingZeros(changed);
+						var state = ((result >>> bit) & 1) != 0 ? CellState.ALIVE : CellState.DEAD;
+						action.invoke(r, (w << 6) + bit, state);
+						changed &= changed - 1; // clear lowest set bit
+					}
+				}
+			}
+		}
+
+		// Swap buffers (done afterwards to prevent invalid updates)
+		var temp = world;
+		world = next;
+		next = temp;
+
+		return worldChanged;
+	}
+
+	/**
+	 * Shifts a row one cell eastward (with wrap-around), so that bit {@code c} of
+	 * the result holds the state of the cell at column {@code c - 1}.
+	 */
+	private void shiftWest(long[] src, long[] dst) {
+		long carry = src[nwords - 1] >>> ((ncols - 1) & 63); // last column wraps to the first
+		for (int w = 0; w < nwords; w++) {
+			long word = src[w];
+			dst[w] = (word << 1) | (carry & 1);
+			carry = word >>> 63;
+		}
+		dst[nwords - 1] &= lastWordMask;
+	}
+
+	/**
+	 * Shifts a row one cell westward (with wrap-around), so that bit {@code c} of
+	 * the result holds the state of the cell at column {@code c + 1}.
+	 */
+	private void shiftEast(long[] src, long[] dst) {
+		for (int w = 0; w < nwords - 1; w++)
+			dst[w] = (src[w] >>> 1) | (src[w + 1] << 63);
+
+		// First column wraps to the last.
+		dst[nwords - 1] = (src[nwords - 1] >>> 1) | ((src[0] & 1) << ((ncols - 1) & 63));
+	}
+
+	@Override
+	public void forAllLife(Callback action) {
+		for (int r = 0; r < nrows; r++) {
+			for (int w = 0; w < nwords; w++) {
+				long word = world[r][w];
+
+				while (word != 0) {
+					action.invoke(r, (w << 6) + Long.numberOfTrailingZeros(word), CellState.ALIVE);
+					word &= word - 1; // clear lowest set bit
+				}
+			}
+		}
+	}
+
+	@Override
+	public long populationCount() {
+		return population;
+	}
+
+	@Override
+	public long populationCount(CellState state) {
+		return StateCounts.ofTwoStates(state, population, (long) nrows * ncols);
+	}
+
+	/**
+	 * A few bits per cell, so the largest grids fit.
+	 */
+	@Override
+	public long maxCells() {
+		return 100_000_000; // 10000 x 10000
+	}
+
+	/**
+	 * @return Description of this model
+	 */
+	public String description() {
+		return "Conway's Game of Life.\nImplemented using rows of 64-bit words, one bit per cell, updated in parallel with bitwise adders.";
+	}
+}
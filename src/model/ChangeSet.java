@@ -0,0 +1,95 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of cell changes, filled by {@link ILife#step(ChangeSet)}
+ * and drained by the caller once the step is over (instead of having a
+ * {@link ILife.Callback} invoked for every single change).
+ * <p>
+ * The changes are kept in parallel primitive arrays, in the order they were
+ * added. The arrays only ever grow, so a change set that is reused from one
+ * step to the next stops allocating once it is big enough.
+ * <p>
+ * A change set is also a callback that adds every cell it is given, which is
+ * how models that don't fill it directly are adapted.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class ChangeSet implements ILife.Callback {
+	private static final CellState[] STATES = CellState.values();
+
+	private int[] rows = new int[64];
+	private int[] cols = new int[64];
+	private byte[] states = new byte[64]; // state ordinals
+	private int size;
+
+	/**
+	 * Removes all the changes (but keeps the buffers).
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @return the number of changes in the set.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Makes room for at least the given number of changes in total.
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity > rows.length) {
+			int length = Math.max(capacity, 2 * rows.length);
+			rows = Arrays.copyOf(rows, length);
+			cols = Arrays.copyOf(cols, length);
+			states = Arrays.copyOf(states, length);
+		}
+	}
+
+	public void add(int row, int col, CellState state) {
+		if (size == rows.length)
+			ensureCapacity(size + 1);
+
+		rows[size] = row;
+		cols[size] = col;
+		states[size] = (byte) state.ordinal();
+		size++;
+	}
+
+	@Override
+	public void invoke(int row, int col, CellState state) {
+		add(row, col, state);
+	}
+
+	/** Row of the i-th change */
+	public int row(int i) {
+		return rows[i];
+	}
+
+	/** Column of the i-th change */
+	public int col(int i) {
+		return cols[i];
+	}
+
+	/** New state of the i-th change */
+	public CellState state(int i) {
+		return STATES[states[i]];
+	}
+
+	/**
+	 * Invokes an action for every change, in order.
+	 */
+	public void forEach(ILife.Callback action) {
+		for (int i = 0; i < size; i++)
+			action.invoke(rows[i], cols[i], STATES[states[i]]);
+	}
+}
@@ -2,9 +2,6 @@ package model;
 
 import java.util.Arrays;
 
-import edu.princeton.cs.algs4.Graph;
-import edu.princeton.cs.algs4.Queue;
-
 /**
  * A graph-based implementation of Conway's Game of Life 
  * (classic ruleset B3/S23).
@@ -13,23 +10,32 @@ import edu.princeton.cs.algs4.Queue;
  * @author Paul Nguyen
  */
 public class GraphLife implements ILife {
-	private Graph world;
+	private NeighborTable world;
 	private CellState[] cells; // row-col indexed
+	private CellState[] next; // next generation for parallel steps (or null), swapped with cells
 	private int nrows;
 	private int ncols;
 
+	// For parallel stepping (see setParallel())
+	private boolean parallel;
+	private RowBands bands;
+
+	private ActiveTiles tiles; // parts of the world that may change on the next step
+	private int[] changes = new int[16]; // cells changed by the current step
+	private int changeCount;
+	private final StateCounts counts = new StateCounts();
+
 	@Override
 	public void resize(int nrows, int ncols) {
-		this.world = new Graph(nrows * ncols);
+		this.world = NeighborTable.of(NeighborTable.Kind.MOORE, nrows, ncols, world);
 		this.cells = new CellState[nrows * ncols];
+		this.next = null; // reallocated on demand
 		this.nrows = nrows;
 		this.ncols = ncols;
+		this.bands = null; // reallocated on demand
+		this.tiles = new ActiveTiles(nrows, ncols);
 
 		clear();
-
-		// Initialize edges/neighbors
-		for (int current = 0; current < cells.length; current++)
-			initializeNeighbors(current);
 	}
 
 	/**
@@ -63,53 +69,45 @@ public class GraphLife implements ILife {
 		return index % ncols;
 	}
 
-	/**
-	 * Adds neighbor edges to given cell.
-	 *
-	 * @param index
-	 */
-	private void initializeNeighbors(int index) {
-		int row = convertToRow(index);
-		int col = convertToCol(index);
-
-		int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
-		int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
-
-		for (int r : rowOffsets)
-			for (int c : colOffsets)
-				if (r != row || c != col) { // Disclude current cell
-					int neighbor = convertToIndex(r, c);
-					if (hasEdge(index, neighbor) != true)
-						world.addEdge(index, neighbor);
-				}
+	@Override
+	public boolean supportsParallel() {
+		return true;
 	}
 
 	/**
-	 * Checks if vertex already linked to neighbor.
-	 *
-	 * @param index
-	 * @param neighbor
-	 * @return boolean true/false linked to neighbor
+	 * Enables or disables parallel stepping. When enabled, each step splits the
+	 * world into bands of rows that are computed concurrently (all of them, since
+	 * the active tiles are not tracked per band). The callback is still invoked on
+	 * the calling thread, but in row-major order, whereas a sequential step
+	 * reports the changes tile by tile. Either way, every changed cell is reported
+	 * exactly once.
+	 * <p>
+	 * Only parallel steps need a second buffer, so it is dropped when disabled.
 	 */
-	private boolean hasEdge(int index, int neighbor) {
-		for (int n : world.adj(index))
-			if (n == neighbor)
-				return true;
-		return false;
+	@Override
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+
+		if (!parallel)
+			next = null;
 	}
 
 	@Override
 	public void clear() {
 		Arrays.fill(cells, CellState.DEAD);
+		counts.reset(cells.length);
+		tiles.markAll();
 	}
 
 	@Override
 	public void randomize() {
-		for (int current = 0; current < cells.length; current++)
-			if (RANDOM.nextBoolean())
-				cells[current] = CellState.ALIVE;
-			else
-				cells[current] = CellState.DEAD;
+		for (int current = 0; current < cells.length; current++) {
+			var state = RANDOM.nextBoolean() ? CellState.ALIVE : CellState.DEAD;
+			counts.change(cells[current], state);
+			cells[current] = state;
+		}
+
+		tiles.markAll();
 	}
 
 	@Override
@@ -119,53 +117,153 @@ public class GraphLife implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
-		cells[convertToIndex(row, col)] = state;
+		int current = convertToIndex(row, col);
+
+		if (cells[current] != state) {
+			counts.change(cells[current], state);
+			cells[current] = state;
+			tiles.markCell(row, col);
+		}
 	}
 
 	@Override
 	public boolean step(Callback action) {
-		Queue<Cell> queue = new Queue<>();
+		advance();
 
-		// Calculate needed updates
-		for (int current = 0; current < cells.length; current++) {
-			// Count amount of alive neighbors
-			int aliveNeighbors = 0;
-			for (int neighbor : world.adj(current)) {
-				if (cells[neighbor] == CellState.ALIVE)
-					aliveNeighbors++;
-			}
+		// Invoke callback for every cell whose new state differs from its old state
+		for (int i = 0; i < changeCount; i++) {
+			int current = changes[i];
+			action.invoke(convertToRow(current), convertToCol(current), cells[current]);
+		}
 
-			// Record needed updates
-			int row = convertToRow(current);
-			int col = convertToCol(current);
+		return changeCount > 0;
+	}
 
-			if (cells[current] == CellState.ALIVE) {
-				if (aliveNeighbors < 2 || aliveNeighbors > 3) // Alive cells only stay alive if
-				                                              // between 2-3 neighbors.
-					queue.enqueue(new Cell(row, col, CellState.DEAD));
-			}
-			else { // if (cells[i].state() == CellState.DEAD)
-				if (aliveNeighbors == 3) // Dead cell with 3 neighbors becomes alive.
-					queue.enqueue(new Cell(row, col, CellState.ALIVE));
-			}
+	@Override
+	public boolean step(ChangeSet changeSet) {
+		advance();
+
+		changeSet.clear();
+		changeSet.ensureCapacity(changeCount);
+
+		for (int i = 0; i < changeCount; i++) {
+			int current = changes[i];
+			changeSet.add(convertToRow(current), convertToCol(current), cells[current]);
 		}
 
-		boolean worldChanged = false;
+		return changeCount > 0;
+	}
+
+	/**
+	 * Computes the next generation, leaving the indices of the cells that changed
+	 * in {@code changes}.
+	 */
+	private void advance() {
+		changeCount = 0;
+
+		if (parallel) {
+			advanceParallel();
+			return;
+		}
 
-		// Make needed updates (done afterwards to prevent invalid updates)
-		while (!queue.isEmpty()) {
-			Cell cell = queue.dequeue();
+		/*
+		 * Only the tiles where something changed nearby during the last step are
+		 * visited, and everything else is known to stay the same. The changes are
+		 * collected first and applied afterwards (to prevent invalid updates), so a
+		 * single buffer is enough.
+		 */
+		tiles.beginStep();
+		for (int i = 0; i < tiles.activeCount(); i++) {
+			int tile = tiles.activeTile(i);
 
-			// Invoke callback if a new state differs from old state
-			if (cell.state() != get(cell.row(), cell.col())) {
-				action.invoke(cell.row(), cell.col(), cell.state());
-				worldChanged = true;
+			for (int r = tiles.firstRow(tile); r < tiles.lastRow(tile); r++) {
+				for (int current = convertToIndex(r, tiles.firstCol(tile)),
+				    end = convertToIndex(r, tiles.lastCol(tile)); current < end; current++) {
+					if (nextState(current) != cells[current])
+						recordChange(current);
+				}
 			}
+		}
+
+		// Make needed updates
+		for (int i = 0; i < changeCount; i++) {
+			int current = changes[i];
+
+			// Every change flips a cell between ALIVE and DEAD.
+			var state = cells[current] == CellState.ALIVE ? CellState.DEAD : CellState.ALIVE;
+			counts.change(cells[current], state);
+			cells[current] = state;
+			tiles.markCell(convertToRow(current), convertToCol(current));
+		}
+	}
+
+	private void recordChange(int current) {
+		if (changeCount == changes.length)
+			changes = Arrays.copyOf(changes, 2 * changeCount);
+
+		changes[changeCount++] = current;
+	}
+
+	/**
+	 * Applies the rules to a single cell.
+	 *
+	 * @param current index of the cell
+	 * @return the state of the cell in the next generation
+	 */
+	private CellState nextState(int current) {
+		// Count amount of alive neighbors
+		int aliveNeighbors = 0;
+		for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++) {
+			if (cells[world.targets[n]] == CellState.ALIVE)
+				aliveNeighbors++;
+		}
 
-			set(cell.row(), cell.col(), cell.state());
+		if (cells[current] == CellState.ALIVE) {
+			if (aliveNeighbors < 2 || aliveNeighbors > 3) // Alive cells only stay alive if
+			                                              // between 2-3 neighbors.
+				return CellState.DEAD;
 		}
+		else { // if (cells[current] == CellState.DEAD)
+			if (aliveNeighbors == 3) // Dead cell with 3 neighbors becomes alive.
+				return CellState.ALIVE;
+		}
+
+		return cells[current];
+	}
+
+	/**
+	 * Parallel version of {@link #advance}. Each band writes its cells of the next
+	 * generation into the second buffer, then the buffers are swapped.
+	 */
+	private void advanceParallel() {
+		if (next == null)
+			next = new CellState[cells.length];
 
-		return worldChanged;
+		if (bands == null)
+			bands = new RowBands(nrows);
+
+		bands.run((band, firstRow, lastRow) -> {
+			for (int current = firstRow * ncols; current < lastRow * ncols; current++) {
+				var state = nextState(current);
+				next[current] = state;
+
+				if (state != cells[current])
+					bands.record(band, current);
+			}
+		});
+
+		// Swap buffers
+		var temp = cells;
+		cells = next;
+		next = temp;
+
+		// Gather the changes (in row-major order) on this thread only.
+		tiles.beginStep(); // every tile was visited
+		bands.forEachChange(current -> {
+			counts.change(next[current], cells[current]); // next now holds the old generation
+			tiles.markCell(convertToRow(current), convertToCol(current));
+			recordChange(current);
+		});
 	}
 
 	@Override
@@ -177,13 +275,12 @@ public class GraphLife implements ILife {
 
 	@Override
 	public long populationCount() {
-		long count = 0;
-
-		for (var state : cells)
-			if (state == CellState.ALIVE)
-				count++;
+		return counts.get(CellState.ALIVE);
+	}
 
-		return count;
+	@Override
+	public long populationCount(CellState state) {
+		return counts.get(state);
 	}
 
 	/**
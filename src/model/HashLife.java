@@ -0,0 +1,705 @@
+package model;
+
+import java.util.HashMap;
+
+/**
+ * An implementation of Conway's Game of Life (classic ruleset B3/S23) using
+ * Gosper's HashLife algorithm.
+ * <p>
+ * The world is a quadtree in which every distinct square of cells is stored
+ * exactly once (identical subtrees are shared), and the future of each square
+ * is memoized on the square itself. Repetitive patterns can therefore be
+ * advanced an exponential number of generations at once, see
+ * {@link #advance(int, Callback)}.
+ * <p>
+ * Unlike the array-based models, the world is an unbounded plane with no
+ * wrap-around. The {@code nrows x ncols} grid is a window onto that plane,
+ * initially centered on its origin, which can be moved (see
+ * {@link #setViewport}); cells that leave the window keep evolving outside of
+ * it.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class HashLife implements ILife {
+	/**
+	 * A square of {@code 2^level x 2^level} cells. Nodes are immutable and
+	 * canonical: two nodes with the same contents are the same object, so they can
+	 * be compared with {@code ==}.
+	 */
+	private static final class Node {
+		final Node nw, ne, sw, se; // null for leaves
+		final int level;
+		final long population;
+		final int hash;
+
+		/** Memoized center of this node advanced by 2^resultStep generations */
+		Node result;
+		int resultStep = -1;
+
+		/** Creates a leaf (single cell) */
+		Node(boolean alive) {
+			this.nw = this.ne = this.sw = this.se = null;
+			this.level = 0;
+			this.population = alive ? 1 : 0;
+			this.hash = alive ? 1 : 0;
+		}
+
+		Node(Node nw, Node ne, Node sw, Node se) {
+			this.nw = nw;
+			this.ne = ne;
+			this.sw = sw;
+			this.se = se;
+			this.level = nw.level + 1;
+			this.population = nw.population + ne.population + sw.population + se.population;
+
+			// Children are canonical, so their identities are enough to hash on.
+			int h = System.identityHashCode(nw);
+			h = 31 * h + System.identityHashCode(ne);
+			h = 31 * h + System.identityHashCode(sw);
+			h = 31 * h + System.identityHashCode(se);
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Node n && nw == n.nw && ne == n.ne && sw == n.sw && se == n.se;
+		}
+	}
+
+	private static final Node DEAD_LEAF = new Node(false);
+	private static final Node ALIVE_LEAF = new Node(true);
+
+	/** Default cap on the number of cached nodes before garbage collection */
+	public static final int DEFAULT_MAX_NODES = 1 << 22;
+
+	/** Canonical table of all non-leaf nodes (the "hash" in HashLife) */
+	private HashMap<Node, Node> cache = new HashMap<>();
+	private Node[] emptyNodes = new Node[64]; // empty node of each level, built lazily
+	private int maxNodes = DEFAULT_MAX_NODES;
+
+	/**
+	 * Root of the universe. A root of level n covers the cells from -2^(n-1)
+	 * (inclusive) to 2^(n-1) (exclusive) in both directions.
+	 */
+	private Node root;
+	private long generation;
+	private int nrows;
+	private int ncols;
+
+	// Plane location of the top-left cell of the grid
+	private long viewTop;
+	private long viewLeft;
+
+	@Override
+	public void resize(int nrows, int ncols) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.viewTop = -(nrows / 2);
+		this.viewLeft = -(ncols / 2);
+		this.cache = new HashMap<>();
+		this.emptyNodes = new Node[64];
+		clear();
+	}
+
+	@Override
+	public void clear() {
+		root = empty(3);
+		generation = 0;
+	}
+
+	@Override
+	public void randomize() {
+		clear();
+
+		// Grow the (empty) root until it covers the window, then rebuild it.
+		while (!covers(root, minY(), minX()) || !covers(root, maxY() - 1, maxX() - 1))
+			root = expand(root);
+
+		long half = 1L << (root.level - 1);
+		root = randomNode(root.level, -half, -half);
+	}
+
+	/**
+	 * Builds a node with random contents inside the window and dead cells outside
+	 * of it.
+	 */
+	private Node randomNode(int level, long y0, long x0) {
+		if (!intersectsWindow(level, y0, x0))
+			return empty(level);
+
+		if (level == 0)
+			return RANDOM.nextBoolean() ? ALIVE_LEAF : DEAD_LEAF;
+
+		long half = 1L << (level - 1);
+		return join(randomNode(level - 1, y0, x0), randomNode(level - 1, y0, x0 + half),
+		    randomNode(level - 1, y0 + half, x0), randomNode(level - 1, y0 + half, x0 + half));
+	}
+
+	@Override
+	public CellState get(int row, int col) {
+		long y = toY(row);
+		long x = toX(col);
+
+		if (!covers(root, y, x))
+			return CellState.DEAD;
+
+		return getCell(root, y, x) ? CellState.ALIVE : CellState.DEAD;
+	}
+
+	@Override
+	public void set(int row, int col, CellState state) {
+		long y = toY(row);
+		long x = toX(col);
+
+		while (!covers(root, y, x))
+			root = expand(root);
+
+		root = setCell(root, y, x, state == CellState.ALIVE);
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		return advance(0, action);
+	}
+
+	/**
+	 * Advance the world by 2^k ticks in one call. Only the net change is reported:
+	 * the callback is invoked for each cell in the window whose state differs
+	 * from what it was before the call.
+	 *
+	 * @param k      log2 of the number of generations to advance
+	 * @param action Used to notify the caller of each changed cell.
+	 * @return {@code true} if any cell in the window changed, {@code false}
+	 *         otherwise.
+	 */
+	public boolean advance(int k, Callback action) {
+		assert k >= 0 && k < 62 : k;
+
+		Node before = root;
+
+		/*
+		 * The successor of a level n node is its center (half the width) advanced by
+		 * up to 2^(n-2) ticks. Since a pattern grows by at most 1 cell per tick, it
+		 * must start inside the center quarter of the root to be safe, and the root
+		 * must be big enough to take the full 2^k ticks in one go.
+		 */
+		while (root.level < Math.max(k + 2, 3)
+		    || centeredSubSubnode(root).population != root.population)
+			root = expand(root);
+
+		root = successor(root, k);
+		generation += 1L << k;
+
+		boolean worldChanged = reportChanges(before, root, action);
+
+		if (cache.size() > maxNodes)
+			collectGarbage();
+
+		return worldChanged;
+	}
+
+	/**
+	 * @return the number of ticks elapsed since the world was last cleared.
+	 */
+	public long generation() {
+		return generation;
+	}
+
+	/**
+	 * Sets the number of cached nodes above which unreachable nodes and memoized
+	 * results are discarded after a step.
+	 */
+	public void setMaxNodes(int maxNodes) {
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * @return the number of nodes currently in the canonical node table.
+	 */
+	public int cacheSize() {
+		return cache.size();
+	}
+
+	/**
+	 * The plane has life outside of the window, which setting cells of the window
+	 * back does not rewind.
+	 */
+	@Override
+	public boolean isRewindable() {
+		return false;
+	}
+
+	@Override
+	public boolean hasViewport() {
+		return true;
+	}
+
+	@Override
+	public void setViewport(long top, long left) {
+		this.viewTop = top;
+		this.viewLeft = left;
+	}
+
+	/**
+	 * Returns the smallest rectangle of the plane containing all live cells (see
+	 * {@link ILife#boundingBox()}).
+	 */
+	@Override
+	public long[] boundingBox() {
+		if (root.population == 0)
+			return null;
+
+		long half = 1L << (root.level - 1);
+		long[] box = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE };
+		extendBox(root, -half, -half, box);
+		return box;
+	}
+
+	/**
+	 * Extends a bounding box {top, left, bottom, right} to the live cells of a
+	 * node. Nodes that lie within the box can't extend it, so they are skipped.
+	 */
+	private static void extendBox(Node node, long y0, long x0, long[] box) {
+		long last = (1L << node.level) - 1;
+
+		if (node.population == 0
+		    || (y0 >= box[0] && x0 >= box[1] && y0 + last <= box[2] && x0 + last <= box[3]))
+			return;
+
+		if (node.level == 0) {
+			box[0] = Math.min(box[0], y0);
+			box[1] = Math.min(box[1], x0);
+			box[2] = Math.max(box[2], y0);
+			box[3] = Math.max(box[3], x0);
+			return;
+		}
+
+		long half = 1L << (node.level - 1);
+		extendBox(node.nw, y0, x0, box);
+		extendBox(node.ne, y0, x0 + half, box);
+		extendBox(node.sw, y0 + half, x0, box);
+		extendBox(node.se, y0 + half, x0 + half, box);
+	}
+
+	@Override
+	public void forAllLife(Callback action) {
+		long half = 1L << (root.level - 1);
+		forAllLife(root, -half, -half, action);
+	}
+
+	private void forAllLife(Node node, long y0, long x0, Callback action) {
+		if (node.population == 0 || !intersectsWindow(node.level, y0, x0))
+			return;
+
+		if (node.level == 0) {
+			action.invoke(toRow(y0), toCol(x0), CellState.ALIVE);
+			return;
+		}
+
+		long half = 1L << (node.level - 1);
+		forAllLife(node.nw, y0, x0, action);
+		forAllLife(node.ne, y0, x0 + half, action);
+		forAllLife(node.sw, y0 + half, x0, action);
+		forAllLife(node.se, y0 + half, x0 + half, action);
+	}
+
+	/**
+	 * @return the number of living cells in the whole universe (including those
+	 *         outside of the window).
+	 */
+	@Override
+	public long populationCount() {
+		return root.population;
+	}
+
+	/**
+	 * Counts the cells in the window (see {@link ILife#populationCount(CellState)}).
+	 */
+	@Override
+	public long populationCount(CellState state) {
+		long half = 1L << (root.level - 1);
+		long alive = windowPopulation(root, -half, -half);
+		return StateCounts.ofTwoStates(state, alive, (long) nrows * ncols);
+	}
+
+	/**
+	 * Counts the live cells of a node that are in the window. Only the nodes
+	 * straddling the edges of the window are looked into, the others are counted
+	 * whole (or not at all).
+	 */
+	private long windowPopulation(Node node, long y0, long x0) {
+		if (node.population == 0 || !intersectsWindow(node.level, y0, x0))
+			return 0;
+
+		long size = 1L << node.level;
+		if (y0 >= minY() && y0 + size <= maxY() && x0 >= minX() && x0 + size <= maxX())
+			return node.population;
+
+		long half = 1L << (node.level - 1);
+		return windowPopulation(node.nw, y0, x0) + windowPopulation(node.ne, y0, x0 + half)
+		    + windowPopulation(node.sw, y0 + half, x0) + windowPopulation(node.se, y0 + half, x0 + half);
+	}
+
+	// =====================
+	// Quadtree construction
+	// =====================
+
+	/**
+	 * Returns the canonical node with the given children.
+	 */
+	private Node join(Node nw, Node ne, Node sw, Node se) {
+		var node = new Node(nw, ne, sw, se);
+		var existing = cache.putIfAbsent(node, node);
+		return (existing != null) ? existing : node;
+	}
+
+	/**
+	 * Returns the canonical empty node of the given level.
+	 */
+	private Node empty(int level) {
+		if (level == 0)
+			return DEAD_LEAF;
+
+		if (emptyNodes[level] == null) {
+			var child = empty(level - 1);
+			emptyNodes[level] = join(child, child, child, child);
+		}
+
+		return emptyNodes[level];
+	}
+
+	/**
+	 * Returns a node one level up with the given node in its center.
+	 */
+	private Node expand(Node node) {
+		var border = empty(node.level - 1);
+		return join(join(border, border, border, node.nw), join(border, border, node.ne, border),
+		    join(border, node.sw, border, border), join(node.se, border, border, border));
+	}
+
+	/** Center of a node, half its width */
+	private Node centeredSubnode(Node node) {
+		return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+	}
+
+	/** Center of a node, a quarter of its width */
+	private Node centeredSubSubnode(Node node) {
+		return join(node.nw.se.se, node.ne.sw.sw, node.sw.ne.ne, node.se.nw.nw);
+	}
+
+	/** Node straddling the border between two horizontally adjacent nodes */
+	private Node centeredHorizontal(Node w, Node e) {
+		return join(w.ne, e.nw, w.se, e.sw);
+	}
+
+	/** Node straddling the border between two vertically adjacent nodes */
+	private Node centeredVertical(Node n, Node s) {
+		return join(n.sw, n.se, s.nw, s.ne);
+	}
+
+	// =========
+	// Evolution
+	// =========
+
+	/**
+	 * Returns the center of a node (level n >= 2) advanced by 2^min(j, n-2)
+	 * ticks. Results are memoized on the node itself.
+	 */
+	private Node successor(Node node, int j) {
+		int step = Math.min(j, node.level - 2);
+
+		if (node.result != null && node.resultStep == step)
+			return node.result;
+
+		Node result;
+
+		if (node.population == 0)
+			result = node.nw;
+		else if (node.level == 2)
+			result = slowSimulation(node);
+		else {
+			// The 9 overlapping subnodes (one level down) covering the node.
+			var n00 = node.nw;
+			var n01 = centeredHorizontal(node.nw, node.ne);
+			var n02 = node.ne;
+			var n10 = centeredVertical(node.nw, node.sw);
+			var n11 = centeredSubnode(node);
+			var n12 = centeredVertical(node.ne, node.se);
+			var n20 = node.sw;
+			var n21 = centeredHorizontal(node.sw, node.se);
+			var n22 = node.se;
+
+			Node c00, c01, c02, c10, c11, c12, c20, c21, c22;
+
+			if (step == node.level - 2) {
+				// Full speed: advance the first half of the time here...
+				c00 = successor(n00, j);
+				c01 = successor(n01, j);
+				c02 = successor(n02, j);
+				c10 = successor(n10, j);
+				c11 = successor(n11, j);
+				c12 = successor(n12, j);
+				c20 = successor(n20, j);
+				c21 = successor(n21, j);
+				c22 = successor(n22, j);
+			}
+			else {
+				// Slow: only take the centers, all of the time is spent below.
+				c00 = centeredSubnode(n00);
+				c01 = centeredSubnode(n01);
+				c02 = centeredSubnode(n02);
+				c10 = centeredSubnode(n10);
+				c11 = centeredSubnode(n11);
+				c12 = centeredSubnode(n12);
+				c20 = centeredSubnode(n20);
+				c21 = centeredSubnode(n21);
+				c22 = centeredSubnode(n22);
+			}
+
+			// ...and the (remaining) time in the 4 overlapping quadrants.
+			result = join(successor(join(c00, c01, c10, c11), j),
+			    successor(join(c01, c02, c11, c12), j), successor(join(c10, c11, c20, c21), j),
+			    successor(join(c11, c12, c21, c22), j));
+		}
+
+		node.result = result;
+		node.resultStep = step;
+		return result;
+	}
+
+	/**
+	 * Base case: advances the center 2x2 of a 4x4 (level 2) node by one tick.
+	 */
+	private Node slowSimulation(Node node) {
+		// Flatten the node into a 4x4 bitmap, bit (4 * y + x).
+		int bits = 0;
+
+		for (int y = 0; y < 4; y++)
+			for (int x = 0; x < 4; x++)
+				if (getCell(node, y - 2, x - 2))
+					bits |= 1 << (4 * y + x);
+
+		return join(nextState(bits, 1, 1), nextState(bits, 1, 2), nextState(bits, 2, 1),
+		    nextState(bits, 2, 2));
+	}
+
+	/**
+	 * Applies B3/S23 to the cell at (y, x) of a 4x4 bitmap.
+	 */
+	private static Node nextState(int bits, int y, int x) {
+		int aliveNeighbors = 0;
+
+		for (int dy = -1; dy <= 1; dy++)
+			for (int dx = -1; dx <= 1; dx++)
+				if (dy != 0 || dx != 0) // Disclude current cell
+					aliveNeighbors += (bits >>> (4 * (y + dy) + (x + dx))) & 1;
+
+		boolean alive = ((bits >>> (4 * y + x)) & 1) != 0;
+
+		if (aliveNeighbors == 3 || (alive && aliveNeighbors == 2))
+			return ALIVE_LEAF;
+		else
+			return DEAD_LEAF;
+	}
+
+	// ===============
+	// Cell operations
+	// ===============
+
+	/**
+	 * Returns whether a node (centered on the origin) covers the cell at (y, x).
+	 */
+	private static boolean covers(Node node, long y, long x) {
+		long half = 1L << (node.level - 1);
+		return -half <= y && y < half && -half <= x && x < half;
+	}
+
+	/**
+	 * Returns the state of the cell at (y, x), relative to the node's center.
+	 */
+	private static boolean getCell(Node node, long y, long x) {
+		while (node.level > 1) {
+			if (node.population == 0)
+				return false;
+
+			long offset = 1L << (node.level - 2);
+
+			if (y < 0) {
+				node = (x < 0) ? node.nw : node.ne;
+				y += offset;
+			}
+			else {
+				node = (x < 0) ? node.sw : node.se;
+				y -= offset;
+			}
+
+			x += (x < 0) ? offset : -offset;
+		}
+
+		// Level 1: y and x are each either -1 or 0.
+		if (y < 0)
+			node = (x < 0) ? node.nw : node.ne;
+		else
+			node = (x < 0) ? node.sw : node.se;
+
+		return node.population != 0;
+	}
+
+	/**
+	 * Returns a copy of a node with the cell at (y, x) set, relative to the node's
+	 * center.
+	 */
+	private Node setCell(Node node, long y, long x, boolean alive) {
+		if (node.level == 1) {
+			var leaf = alive ? ALIVE_LEAF : DEAD_LEAF;
+
+			if (y < 0)
+				return (x < 0) ? join(leaf, node.ne, node.sw, node.se)
+				    : join(node.nw, leaf, node.sw, node.se);
+			else
+				return (x < 0) ? join(node.nw, node.ne, leaf, node.se)
+				    : join(node.nw, node.ne, node.sw, leaf);
+		}
+
+		long offset = 1L << (node.level - 2);
+		long y1 = (y < 0) ? y + offset : y - offset;
+		long x1 = (x < 0) ? x + offset : x - offset;
+
+		if (y < 0) {
+			if (x < 0)
+				return join(setCell(node.nw, y1, x1, alive), node.ne, node.sw, node.se);
+			else
+				return join(node.nw, setCell(node.ne, y1, x1, alive), node.sw, node.se);
+		}
+		else {
+			if (x < 0)
+				return join(node.nw, node.ne, setCell(node.sw, y1, x1, alive), node.se);
+			else
+				return join(node.nw, node.ne, node.sw, setCell(node.se, y1, x1, alive));
+		}
+	}
+
+	/**
+	 * Invokes the callback for every cell in the window that differs between two
+	 * roots. Shared subtrees are skipped, so this is proportional to the amount of
+	 * change rather than the size of the window.
+	 */
+	private boolean reportChanges(Node before, Node after, Callback action) {
+		while (before.level < after.level)
+			before = expand(before);
+		while (after.level < before.level)
+			after = expand(after);
+
+		long half = 1L << (after.level - 1);
+		return reportChanges(before, after, -half, -half, action);
+	}
+
+	private boolean reportChanges(Node before, Node after, long y0, long x0, Callback action) {
+		if (before == after || !intersectsWindow(after.level, y0, x0))
+			return false;
+
+		if (after.level == 0) {
+			var state = (after == ALIVE_LEAF) ? CellState.ALIVE : CellState.DEAD;
+			action.invoke(toRow(y0), toCol(x0), state);
+			return true;
+		}
+
+		long half = 1L << (after.level - 1);
+		boolean changed = false;
+		changed |= reportChanges(before.nw, after.nw, y0, x0, action);
+		changed |= reportChanges(before.ne, after.ne, y0, x0 + half, action);
+		changed |= reportChanges(before.sw, after.sw, y0 + half, x0, action);
+		changed |= reportChanges(before.se, after.se, y0 + half, x0 + half, action);
+		return changed;
+	}
+
+	/**
+	 * Rebuilds the node table from the nodes reachable from the root, dropping all
+	 * memoized results so that unreachable nodes can be reclaimed.
+	 */
+	private void collectGarbage() {
+		cache = new HashMap<>();
+		emptyNodes = new Node[64];
+		retain(root);
+	}
+
+	private void retain(Node node) {
+		if (node.level == 0 || cache.putIfAbsent(node, node) != null)
+			return; // leaf or already visited
+
+		node.result = null;
+		node.resultStep = -1;
+
+		retain(node.nw);
+		retain(node.ne);
+		retain(node.sw);
+		retain(node.se);
+	}
+
+	// ======================
+	// Window <--> plane
+	// ======================
+
+	private long toY(int row) {
+		return viewTop + row;
+	}
+
+	private long toX(int col) {
+		return viewLeft + col;
+	}
+
+	private int toRow(long y) {
+		return (int) (y - viewTop);
+	}
+
+	private int toCol(long x) {
+		return (int) (x - viewLeft);
+	}
+
+	private long minY() {
+		return toY(0);
+	}
+
+	private long maxY() {
+		return toY(nrows);
+	}
+
+	private long minX() {
+		return toX(0);
+	}
+
+	private long maxX() {
+		return toX(ncols);
+	}
+
+	/**
+	 * Returns whether the square of the given level with top-left corner (y0, x0)
+	 * overlaps the window.
+	 */
+	private boolean intersectsWindow(int level, long y0, long x0) {
+		long size = 1L << level;
+		return y0 < maxY() && y0 + size > minY() && x0 < maxX() && x0 + size > minX();
+	}
+
+	/**
+	 * The window costs nothing besides the cells of the quadtree, so the largest
+	 * grids fit.
+	 */
+	@Override
+	public long maxCells() {
+		return 100_000_000; // 10000 x 10000
+	}
+
+	/**
+	 * @return Description of this model
+	 */
+	public String description() {
+		return "Conway's Game of Life.\nImplemented using HashLife, a memoized quadtree. The world is an unbounded plane (no wrap-around).";
+	}
+}
@@ -68,6 +68,25 @@ public interface ILife {
 	 */
 	boolean step(Callback action);
 
+	/**
+	 * Advance the world by one tick, like {@link #step(Callback)}, but collect the
+	 * cells whose state was changed into a buffer that the caller drains
+	 * afterwards. This saves a call per change, and lets the caller process the
+	 * changes in bulk.
+	 * <p>
+	 * By default, this simply adds the changes one by one as they are reported to
+	 * the callback. Models that already gather their changes can fill the buffer
+	 * directly.
+	 *
+	 * @param changes Cleared, then filled with the cells that changed.
+	 * @return {@code true} if the world was changed at all as a result of this
+	 *         step, {@code false} otherwise.
+	 */
+	default boolean step(ChangeSet changes) {
+		changes.clear();
+		return step((Callback) changes);
+	}
+
 	/**
 	 * Execute an action for all live cells.
 	 *
@@ -80,6 +99,86 @@ public interface ILife {
 	 */
 	long populationCount();
 
+	/**
+	 * Counts the cells of the grid in a given state, e.g., for statistics, so that
+	 * the counts of all the states add up to {@code nrows * ncols}. Like
+	 * {@link #populationCount()}, this should not need a scan of the world (models
+	 * keep their counts up to date as cells change).
+	 * <p>
+	 * For models whose world extends beyond the grid (see {@link #hasViewport()}),
+	 * only the cells in the window are counted, whereas
+	 * {@link #populationCount()} counts the whole world.
+	 *
+	 * @return the number of cells in the given state.
+	 */
+	long populationCount(CellState state);
+
+	/**
+	 * @return whether this model can compute a step on several threads (see
+	 *         {@link #setParallel(boolean)}).
+	 */
+	default boolean supportsParallel() {
+		return false;
+	}
+
+	/**
+	 * Enables or disables parallel stepping, if this model supports it. The
+	 * callback of {@link #step(Callback)} is still invoked on the calling thread.
+	 * Does nothing by default.
+	 */
+	default void setParallel(boolean parallel) {
+	}
+
+	/**
+	 * @return the largest number of cells ({@code nrows * ncols}) that this model
+	 *         can hold in a reasonable amount of memory, for limiting the size of
+	 *         the grid. By default, 2000 x 2000 cells, which keeps models that
+	 *         store a reference (or a neighbor table entry) per cell well within a
+	 *         typical heap.
+	 */
+	default long maxCells() {
+		return 4_000_000;
+	}
+
+	/**
+	 * @return whether the whole state of this model is given by {@link #get} on
+	 *         the cells of the grid, so that setting cells back to earlier states
+	 *         rewinds it (e.g., for a history of the world). This is the case by
+	 *         default.
+	 */
+	default boolean isRewindable() {
+		return true;
+	}
+
+	/**
+	 * @return whether the grid is a window onto a larger (unbounded) world, which
+	 *         can be moved with {@link #setViewport(long, long)}.
+	 */
+	default boolean hasViewport() {
+		return false;
+	}
+
+	/**
+	 * Moves the window shown by the grid so that grid cell (0, 0) is the world
+	 * location (top, left), if this model has one. The cells of the grid then
+	 * report the states of the world under the window. Does nothing by default.
+	 */
+	default void setViewport(long top, long left) {
+	}
+
+	/**
+	 * Returns the smallest rectangle of the world containing all live cells, as
+	 * {@code {top, left, bottom, right}} (inclusive world locations, as used by
+	 * {@link #setViewport(long, long)}). This lets the caller find life that is out
+	 * of view, and only ask for the cells it will actually show.
+	 *
+	 * @return the bounding box of life, or {@code null} if there is no life or this
+	 *         model has no viewport (the default).
+	 */
+	default long[] boundingBox() {
+		return null;
+	}
+
 	/**
 	 * @return an optional description of this model
 	 */
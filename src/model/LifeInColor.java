@@ -2,7 +2,6 @@ package model;
 
 import java.util.Arrays;
 
-import edu.princeton.cs.algs4.Graph;
 import edu.princeton.cs.algs4.Queue;
 
 /**
@@ -13,8 +12,9 @@ import edu.princeton.cs.algs4.Queue;
  * @author Paul Nguyen
  */
 public class LifeInColor implements ILife {
-	private Graph world;
+	private NeighborTable world;
 	private CellState[] cells; // row-col indexed
+	private final StateCounts counts = new StateCounts();
 	private int nrows;
 	private int ncols;
 	private static final CellState COLOR_1 = CellState.RED;
@@ -23,16 +23,12 @@ public class LifeInColor implements ILife {
 
 	@Override
 	public void resize(int nrows, int ncols) {
-		this.world = new Graph(nrows * ncols);
+		this.world = NeighborTable.of(NeighborTable.Kind.MOORE, nrows, ncols, world);
 		this.cells = new CellState[nrows * ncols];
 		this.nrows = nrows;
 		this.ncols = ncols;
 
 		clear();
-
-		// Initialize edges/neighbors
-		for (int current = 0; current < cells.length; current++)
-			initializeNeighbors(current);
 	}
 
 	/**
@@ -66,53 +62,19 @@ public class LifeInColor implements ILife {
 		return index % ncols;
 	}
 
-	/**
-	 * Adds neighbor edges to given cell.
-	 *
-	 * @param index
-	 */
-	private void initializeNeighbors(int index) {
-		int row = convertToRow(index);
-		int col = convertToCol(index);
-
-		int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
-		int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
-
-		for (int r : rowOffsets)
-			for (int c : colOffsets)
-				if (r != row || c != col) { // Disclude current cell
-					int neighbor = convertToIndex(r, c);
-					if (hasEdge(index, neighbor) != true)
-						world.addEdge(index, neighbor);
-				}
-	}
-
-	/**
-	 * Checks if vertex already linked to neighbor.
-	 *
-	 * @param index
-	 * @param neighbor
-	 * @return boolean true/false linked to neighbor
-	 */
-	private boolean hasEdge(int index, int neighbor) {
-		for (int n : world.adj(index))
-			if (n == neighbor)
-				return true;
-		return false;
-	}
-
 	@Override
 	public void clear() {
 		Arrays.fill(cells, CellState.DEAD);
+		counts.reset(cells.length);
 	}
 
 	@Override
 	public void randomize() {
 		for (int current = 0; current < cells.length; current++)
 			if (RANDOM.nextBoolean() && RANDOM.nextBoolean())
-				cells[current] = CellState.DEAD;
+				setCell(current, CellState.DEAD);
 			else
-				cells[current] = randomSpecies();
+				setCell(current, randomSpecies());
 	}
 
 	/**
@@ -135,7 +97,12 @@ public class LifeInColor implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
-		cells[convertToIndex(row, col)] = state;
+		setCell(convertToIndex(row, col), state);
+	}
+
+	private void setCell(int current, CellState state) {
+		counts.change(cells[current], state);
+		cells[current] = state;
 	}
 
 	@Override
@@ -148,17 +115,17 @@ public class LifeInColor implements ILife {
 
 			// If dead cell, set species
 			if (species == CellState.DEAD) {
-				for (int neighbor : world.adj(current))
-					if (cells[neighbor] != CellState.DEAD)
-						species = cells[neighbor];
+				for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++)
+					if (cells[world.targets[n]] != CellState.DEAD)
+						species = cells[world.targets[n]];
 				if (species == CellState.DEAD) // If still dead, set as random species.
 					species = randomSpecies();
 			}
 
 			// Count amount of alive neighbors
 			int aliveNeighbors = 0;
-			for (int neighbor : world.adj(current))
-				if (cells[neighbor] == species)
+			for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++)
+				if (cells[world.targets[n]] == species)
 					aliveNeighbors++;
 
 			// Record needed updates
@@ -203,13 +170,12 @@ public class LifeInColor implements ILife {
 
 	@Override
 	public long populationCount() {
-		long count = 0;
-
-		for (var state : cells)
-			if (state != CellState.DEAD)
-				count++;
+		return cells.length - counts.get(CellState.DEAD);
+	}
 
-		return count;
+	@Override
+	public long populationCount(CellState state) {
+		return counts.get(state);
 	}
 
 	/**
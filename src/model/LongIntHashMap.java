@@ -0,0 +1,229 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A minimal open-addressing hash map from {@code long} keys to non-zero
+ * {@code int} values, with no boxing and no per-entry objects.
+ * <p>
+ * A value of 0 means "absent", so storing 0 is the same as removing the key.
+ * Collisions are resolved with linear probing, and removals shift the
+ * following entries back instead of leaving tombstones. The table grows as
+ * entries are added, and shrinks when cleared after holding far fewer entries
+ * than it has room for (so a map that is refilled every step stays
+ * proportional to its recent contents, not to its peak).
+ * <p>
+ * Entries are iterated by slot: for every {@code slot} in
+ * {@code [0, capacity())}, the slot holds an entry if
+ * {@code valueAt(slot) != 0}.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class LongIntHashMap {
+	private static final int MIN_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private long[] keys;
+	private int[] values;
+	private int mask; // capacity - 1 (capacity is a power of 2)
+	private int size;
+
+	public LongIntHashMap() {
+		this(MIN_CAPACITY);
+	}
+
+	public LongIntHashMap(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		// Keep the load factor at or below 1/2.
+		long capacity = Long.highestOneBit(Math.max(MIN_CAPACITY, 2L * expectedSize - 1)) << 1;
+		return (int) Math.min(capacity, MAX_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	/** Mixes the bits of the key (the finalizer of MurmurHash3) */
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	/** Returns the slot of the key, or of the empty slot where it would go */
+	private int slotOf(long key) {
+		int slot = hash(key) & mask;
+
+		while (values[slot] != 0 && keys[slot] != key)
+			slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	/**
+	 * @return the value for the key, or 0 if absent.
+	 */
+	public int get(long key) {
+		return values[slotOf(key)];
+	}
+
+	public boolean containsKey(long key) {
+		return get(key) != 0;
+	}
+
+	/**
+	 * Associates the key with the value (or removes it if the value is 0).
+	 */
+	public void put(long key, int value) {
+		if (value == 0) {
+			remove(key);
+			return;
+		}
+
+		int slot = slotOf(key);
+
+		if (values[slot] == 0) {
+			if (2 * (size + 1) > keys.length) {
+				grow();
+				slot = slotOf(key);
+			}
+
+			keys[slot] = key;
+			size++;
+		}
+
+		values[slot] = value;
+	}
+
+	/**
+	 * Adds to the value associated with the key (treating absent keys as 0).
+	 *
+	 * @return the new value
+	 */
+	public int add(long key, int delta) {
+		int slot = slotOf(key);
+
+		if (values[slot] == 0) {
+			if (delta == 0)
+				return 0;
+
+			if (2 * (size + 1) > keys.length) {
+				grow();
+				slot = slotOf(key);
+			}
+
+			keys[slot] = key;
+			values[slot] = delta;
+			size++;
+			return delta;
+		}
+
+		int value = values[slot] + delta;
+
+		if (value == 0)
+			removeSlot(slot);
+		else
+			values[slot] = value;
+
+		return value;
+	}
+
+	/**
+	 * @return {@code true} if the key was present.
+	 */
+	public boolean remove(long key) {
+		int slot = slotOf(key);
+
+		if (values[slot] == 0)
+			return false;
+
+		removeSlot(slot);
+		return true;
+	}
+
+	/**
+	 * Empties a slot, then moves back any following entries that would no longer
+	 * be reachable from their home slot.
+	 */
+	private void removeSlot(int slot) {
+		size--;
+
+		int gap = slot;
+		int next = (gap + 1) & mask;
+
+		while (values[next] != 0) {
+			int home = hash(keys[next]) & mask;
+
+			// Move the entry into the gap unless its home lies cyclically in (gap, next].
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+
+			next = (next + 1) & mask;
+		}
+
+		values[gap] = 0;
+	}
+
+	private void grow() {
+		if (keys.length == MAX_CAPACITY) {
+			// Fill the table up instead, but keep an empty slot to end the probes.
+			if (size + 1 < keys.length)
+				return;
+
+			throw new IllegalStateException("LongIntHashMap is full");
+		}
+
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		allocate(2 * oldKeys.length);
+
+		for (int slot = 0; slot < oldKeys.length; slot++)
+			if (oldValues[slot] != 0)
+				put(oldKeys[slot], oldValues[slot]);
+	}
+
+	/**
+	 * Removes all entries. The capacity is kept if the map was reasonably full,
+	 * and otherwise shrunk to fit as many entries as it held.
+	 */
+	public void clear() {
+		int capacity = tableSizeFor(size);
+
+		if (capacity < keys.length / 4)
+			allocate(capacity);
+		else if (size > 0) {
+			Arrays.fill(values, 0);
+			size = 0;
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return keys.length;
+	}
+
+	public long keyAt(int slot) {
+		return keys[slot];
+	}
+
+	public int valueAt(int slot) {
+		return values[slot];
+	}
+}
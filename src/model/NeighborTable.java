@@ -0,0 +1,325 @@
+package model;
+
+import java.util.LinkedHashMap;
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable adjacency table for the cells of a wrap-around (toroidal) grid,
+ * stored in compressed sparse row form.
+ * <p>
+ * Cells are indexed in row-major order ({@code row * ncols + col}). The
+ * neighbors of cell {@code i} are {@code targets[offsets[i]]} up to (but
+ * excluding) {@code targets[offsets[i + 1]]}. The table has exactly the
+ * adjacency of the algs4 {@code Graph} it replaces, in the same order: it is
+ * undirected (if a is a neighbor of b then b is a neighbor of a), without
+ * parallel edges, and each cell's neighbors come in the reverse order in which
+ * they were added (as a {@code Bag} iterates). Models that pick the first or
+ * last neighbor matching some condition therefore behave as they did with the
+ * {@code Graph}. The only difference is that it can be iterated without any
+ * allocation.
+ * <p>
+ * Like the {@code Graph}, grids that are too narrow for a topology (e.g., one
+ * cell wide) give a cell a self-loop, which lists the cell twice among its own
+ * neighbors.
+ * <p>
+ * Tables only depend on the topology and the dimensions of the grid, so they
+ * are shared between models through a process-wide LRU cache; use {@link #of}
+ * to get one. Once a table has been built, switching to another model with the
+ * same topology is just a cache lookup. The cache is limited by the memory of
+ * its tables rather than their number (a table takes about 36 bytes per cell),
+ * and a model that is resized drops its previous table from it.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class NeighborTable {
+	/**
+	 * The supported grid topologies.
+	 */
+	public enum Kind {
+		/** The 8 cells sharing an edge or a corner */
+		MOORE(8),
+		/** The 6 cells sharing an edge in a hex grid with odd rows shifted right */
+		HEX(6),
+		/** The 8 cells a chess knight's move away */
+		KNIGHT(8);
+
+		/** The number of neighbors of each cell (in a large enough grid) */
+		public final int neighbors;
+
+		Kind(int neighbors) {
+			this.neighbors = neighbors;
+		}
+	}
+
+	/** Maximum number of bytes of the cached tables (larger tables are not cached) */
+	private static final long CACHE_BYTES = 64L << 20;
+
+	private record Key(Kind kind, int nrows, int ncols) {
+	}
+
+	/** Cached tables, in least- to most-recently used order */
+	private static final LinkedHashMap<Key, NeighborTable> cache = new LinkedHashMap<>(16, 0.75f,
+	    true);
+	private static long cacheBytes; // bytes of the cached tables
+
+	private static long cacheHits;
+	private static long cacheMisses;
+
+	final Kind kind;
+	final int nrows;
+	final int ncols;
+	final int[] offsets;
+	final int[] targets;
+
+	/**
+	 * Returns the table for the given topology and dimensions, building it only if
+	 * it is not already cached.
+	 *
+	 * @param replaced the table that the caller used until now (e.g., before it was
+	 *                 resized), which is dropped from the cache, or {@code null}
+	 */
+	static synchronized NeighborTable of(Kind kind, int nrows, int ncols, NeighborTable replaced) {
+		var key = new Key(kind, nrows, ncols);
+
+		if (replaced != null && !replaced.key().equals(key) && cache.remove(replaced.key()) != null)
+			cacheBytes -= replaced.bytes();
+
+		var table = cache.get(key);
+
+		if (table == null) {
+			cacheMisses++;
+			table = new NeighborTable(kind, nrows, ncols);
+
+			if (table.bytes() <= CACHE_BYTES) {
+				cache.put(key, table);
+				cacheBytes += table.bytes();
+
+				// Evict the least recently used tables.
+				var eldest = cache.values().iterator();
+				while (cacheBytes > CACHE_BYTES) {
+					cacheBytes -= eldest.next().bytes();
+					eldest.remove();
+				}
+			}
+		}
+		else
+			cacheHits++;
+
+		return table;
+	}
+
+	private Key key() {
+		return new Key(kind, nrows, ncols);
+	}
+
+	/**
+	 * @return the memory taken by the arrays of this table.
+	 */
+	private long bytes() {
+		return Integer.BYTES * ((long) offsets.length + targets.length);
+	}
+
+	/**
+	 * @return the number of times a cached table was reused.
+	 */
+	public static synchronized long cacheHits() {
+		return cacheHits;
+	}
+
+	/**
+	 * @return the number of times a table had to be built.
+	 */
+	public static synchronized long cacheMisses() {
+		return cacheMisses;
+	}
+
+	private NeighborTable(Kind kind, int nrows, int ncols) {
+		this.kind = kind;
+		this.nrows = nrows;
+		this.ncols = ncols;
+
+		int size = nrows * ncols;
+
+		/*
+		 * Collect the edges into fixed-size slots per cell first, in the order
+		 * Graph.addEdge() would add them. Every topology has at most 8 neighbors per
+		 * cell, but the hex grid is not symmetric across the top/bottom seam when
+		 * nrows is odd, so reverse edges can add a few more.
+		 */
+		final int maxDegree = 16;
+		int[] slots = new int[size * maxDegree];
+		int[] degree = new int[size];
+		int[] neighbors = new int[8];
+
+		for (int current = 0; current < size; current++) {
+			int count = neighborsOf(current, neighbors);
+
+			for (int n = 0; n < count; n++) {
+				if (hasEdge(slots, degree, maxDegree, current, neighbors[n]))
+					continue;
+
+				// Both ends of the edge, so a self-loop is added twice (as in Graph).
+				slots[current * maxDegree + degree[current]++] = neighbors[n];
+				slots[neighbors[n] * maxDegree + degree[neighbors[n]]++] = current;
+			}
+		}
+
+		// Compact the slots, reversing each cell's neighbors (Bag order).
+		this.offsets = new int[size + 1];
+		for (int current = 0; current < size; current++)
+			offsets[current + 1] = offsets[current] + degree[current];
+
+		this.targets = new int[offsets[size]];
+		for (int current = 0; current < size; current++)
+			for (int n = 0; n < degree[current]; n++)
+				targets[offsets[current + 1] - 1 - n] = slots[current * maxDegree + n];
+	}
+
+	/**
+	 * Checks if a cell is already linked to a neighbor.
+	 */
+	private static boolean hasEdge(int[] slots, int[] degree, int maxDegree, int from, int to) {
+		int base = from * maxDegree;
+		for (int n = 0; n < degree[from]; n++)
+			if (slots[base + n] == to)
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Computes the neighbors of a cell according to this table's topology.
+	 *
+	 * @param index     the cell
+	 * @param neighbors output array (of length at least 8)
+	 * @return the number of neighbors written
+	 */
+	private int neighborsOf(int index, int[] neighbors) {
+		int row = index / ncols;
+		int col = index % ncols;
+		int count = 0;
+
+		switch (kind) {
+			case MOORE: {
+				int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
+				int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
+
+				for (int r : rowOffsets)
+					for (int c : colOffsets)
+						if (r != row || c != col) // Disclude current cell
+							neighbors[count++] = r * ncols + c;
+				break;
+			}
+			case HEX: {
+				/*
+				 * This assumes that odd-rows are offset (i.e., shifted right) in the hex
+				 * grid. So even rows are missing their top-right and bottom-right neighbors
+				 * (out of the standard 8), and odd rows are missing the top-left and
+				 * bottom-left.
+				 */
+				int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
+				int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
+				int[][] pattern;
+
+				if (row % 2 == 0)
+					pattern = new int[][] { { 0, 0 }, { 0, 1 }, { 1, 0 }, { 1, 2 }, { 2, 0 }, { 2, 1 } };
+				else
+					pattern = new int[][] { { 0, 1 }, { 0, 2 }, { 1, 0 }, { 1, 2 }, { 2, 1 }, { 2, 2 } };
+
+				for (int[] p : pattern)
+					neighbors[count++] = rowOffsets[p[0]] * ncols + colOffsets[p[1]];
+				break;
+			}
+			case KNIGHT: {
+				int[] rowOffsets = { (row - 2 + nrows) % nrows, (row - 1 + nrows) % nrows,
+				    (row + 1 + nrows) % nrows, (row + 2 + nrows) % nrows };
+				int[] colOffsets = { (col - 2 + ncols) % ncols, (col - 1 + ncols) % ncols,
+				    (col + 1 + ncols) % ncols, (col + 2 + ncols) % ncols };
+				int[][] pattern = { { 0, 1 }, { 0, 2 }, { 1, 0 }, { 1, 3 }, { 2, 0 }, { 2, 3 },
+				    { 3, 1 }, { 3, 2 } };
+
+				for (int[] p : pattern)
+					neighbors[count++] = rowOffsets[p[0]] * ncols + colOffsets[p[1]];
+				break;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * @return the number of cells in the grid.
+	 */
+	int size() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * @return the largest number of neighbors of any cell (which can exceed the
+	 *         topology's usual count in small or odd-sized grids).
+	 */
+	int maxDegree() {
+		int max = 0;
+		for (int current = 0; current < size(); current++)
+			max = Math.max(max, offsets[current + 1] - offsets[current]);
+
+		return max;
+	}
+
+	/**
+	 * Computes the distances from every cell to the nearest of a set of source
+	 * cells, with a single breadth-first search started from all of them at once.
+	 * This tells every cell how far the nearest source is (and, through
+	 * {@link #downhill}, which way), for the price of one search instead of one
+	 * per cell that asks.
+	 *
+	 * @param isSource whether a cell is a source
+	 * @param distTo   output: number of edges on a shortest path to the nearest
+	 *                 source, or {@link Integer#MAX_VALUE} if none is reachable
+	 * @param queue    scratch space, at least {@link #size()} long
+	 */
+	void nearestSourceSearch(IntPredicate isSource, int[] distTo, int[] queue) {
+		int head = 0;
+		int tail = 0;
+
+		for (int v = 0; v < size(); v++) {
+			if (isSource.test(v)) {
+				distTo[v] = 0;
+				queue[tail++] = v;
+			}
+			else
+				distTo[v] = Integer.MAX_VALUE;
+		}
+
+		while (head < tail) {
+			int v = queue[head++];
+
+			for (int n = offsets[v]; n < offsets[v + 1]; n++) {
+				int w = targets[n];
+
+				if (distTo[w] == Integer.MAX_VALUE) {
+					distTo[w] = distTo[v] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the first neighbor of a cell that is one step closer to the nearest
+	 * source, as found by {@link #nearestSourceSearch} (i.e., the first step of a
+	 * shortest path to it). Returns the cell itself if it is a source or can't
+	 * reach any.
+	 */
+	int downhill(int v, int[] distTo) {
+		if (distTo[v] == 0 || distTo[v] == Integer.MAX_VALUE)
+			return v;
+
+		for (int n = offsets[v]; n < offsets[v + 1]; n++)
+			if (distTo[targets[n]] == distTo[v] - 1)
+				return targets[n];
+
+		return v; // can't happen with distances from nearestSourceSearch()
+	}
+}
@@ -2,7 +2,6 @@ package model;
 
 import java.util.Arrays;
 
-import edu.princeton.cs.algs4.Graph;
 import edu.princeton.cs.algs4.Queue;
 
 /**
@@ -13,8 +12,9 @@ import edu.princeton.cs.algs4.Queue;
  * @author Paul Nguyen
  */
 public class RockPaperScissorLife implements ILife {
-	private Graph world;
+	private NeighborTable world;
 	private CellState[] cells; // row-col indexed
+	private final StateCounts counts = new StateCounts();
 	private int nrows;
 	private int ncols;
 	private static final CellState ROCK = CellState.BLUE;
@@ -23,16 +23,12 @@ public class RockPaperScissorLife implements ILife {
 
 	@Override
 	public void resize(int nrows, int ncols) {
-		this.world = new Graph(nrows * ncols);
+		this.world = NeighborTable.of(NeighborTable.Kind.MOORE, nrows, ncols, world);
 		this.cells = new CellState[nrows * ncols];
 		this.nrows = nrows;
 		this.ncols = ncols;
 
 		clear();
-
-		// Initialize edges/neighbors
-		for (int current = 0; current < cells.length; current++)
-			initializeNeighbors(current);
 	}
 
 	/**
@@ -66,44 +62,10 @@ public class RockPaperScissorLife implements ILife {
 		return index % ncols;
 	}
 
-	/**
-	 * Adds neighbor edges to given cell.
-	 *
-	 * @param index
-	 */
-	private void initializeNeighbors(int index) {
-		int row = convertToRow(index);
-		int col = convertToCol(index);
-
-		int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
-		int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
-
-		for (int r : rowOffsets)
-			for (int c : colOffsets)
-				if (r != row || c != col) { // Disclude current cell
-					int neighbor = convertToIndex(r, c);
-					if (hasEdge(index, neighbor) != true)
-						world.addEdge(index, neighbor);
-				}
-	}
-
-	/**
-	 * Checks if vertex already linked to neighbor.
-	 *
-	 * @param index
-	 * @param neighbor
-	 * @return boolean true/false linked to neighbor
-	 */
-	private boolean hasEdge(int index, int neighbor) {
-		for (int n : world.adj(index))
-			if (n == neighbor)
-				return true;
-		return false;
-	}
-
 	@Override
 	public void clear() {
 		Arrays.fill(cells, CellState.DEAD);
+		counts.reset(cells.length);
 	}
 
 	@Override
@@ -111,11 +73,11 @@ public class RockPaperScissorLife implements ILife {
 		for (int current = 0; current < cells.length; current++) {
 			int randomInt = RANDOM.nextInt(3);
 			if (randomInt == 0)
-				cells[current] = ROCK;
+				setCell(current, ROCK);
 			else if (randomInt == 1)
-				cells[current] = PAPER;
+				setCell(current, PAPER);
 			else
-				cells[current] = SCISSORS;
+				setCell(current, SCISSORS);
 		}
 	}
 
@@ -126,7 +88,12 @@ public class RockPaperScissorLife implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
-		cells[convertToIndex(row, col)] = state;
+		setCell(convertToIndex(row, col), state);
+	}
+
+	private void setCell(int current, CellState state) {
+		counts.change(cells[current], state);
+		cells[current] = state;
 	}
 
 	@Override
@@ -150,7 +117,8 @@ public class RockPaperScissorLife implements ILife {
 
 			// Count neighbors.
 			int predatorNeighbors = 0;
-			for (int neighbor : world.adj(current)) {
+			for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++) {
+				int neighbor = world.targets[n];
 				if (cells[neighbor] == predator)
 					predatorNeighbors++;
 			}
@@ -191,6 +159,11 @@ public class RockPaperScissorLife implements ILife {
 		return nrows * ncols; // All cells are considered alive.
 	}
 
+	@Override
+	public long populationCount(CellState state) {
+		return counts.get(state);
+	}
+
 	/**
 	 * @return Description of this model
 	 */
@@ -0,0 +1,87 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Helper for stepping a row-major grid in parallel.
+ * <p>
+ * The rows are split into contiguous bands which are processed concurrently
+ * on the common fork-join pool. Each band only writes its own rows of the next
+ * generation, while reading the current generation freely (including the halo
+ * rows just above and below the band), so no locking is needed. Each band also
+ * logs the (row-major) indices of the cells it changed so that the caller can
+ * replay the change notifications afterwards, on a single thread and in
+ * row-major order.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class RowBands {
+	/**
+	 * Computes the next generation for the rows in [firstRow, lastRow).
+	 */
+	@FunctionalInterface
+	interface BandStep {
+		void step(int band, int firstRow, int lastRow);
+	}
+
+	private final int[] bounds; // band b covers rows [bounds[b], bounds[b + 1])
+	private final int[][] changes; // per-band log of changed cell indices
+	private final int[] counts; // number of logged changes per band
+
+	RowBands(int nrows) {
+		// A few bands per worker gives the pool some slack for load balancing.
+		int nbands = Math.max(1, Math.min(nrows, 4 * ForkJoinPool.getCommonPoolParallelism()));
+
+		this.bounds = new int[nbands + 1];
+		this.changes = new int[nbands][16];
+		this.counts = new int[nbands];
+
+		for (int b = 0; b <= nbands; b++)
+			bounds[b] = (int) ((long) nrows * b / nbands);
+	}
+
+	/**
+	 * Runs the given step on every band concurrently and waits for all of them to
+	 * finish.
+	 */
+	void run(BandStep step) {
+		Arrays.fill(counts, 0);
+
+		IntStream.range(0, counts.length).parallel()
+		    .forEach(b -> step.step(b, bounds[b], bounds[b + 1]));
+	}
+
+	/**
+	 * Logs a changed cell. Must only be called from the thread running the band.
+	 */
+	void record(int band, int index) {
+		if (counts[band] == changes[band].length)
+			changes[band] = Arrays.copyOf(changes[band], 2 * counts[band]);
+
+		changes[band][counts[band]++] = index;
+	}
+
+	/**
+	 * @return {@code true} if any band logged a change during the last run.
+	 */
+	boolean anyChanges() {
+		for (int count : counts)
+			if (count > 0)
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Replays the logged changes of the last run in row-major order.
+	 */
+	void forEachChange(IntConsumer action) {
+		for (int b = 0; b < counts.length; b++)
+			for (int i = 0; i < counts[b]; i++)
+				action.accept(changes[b][i]);
+	}
+}
@@ -0,0 +1,168 @@
+package model;
+
+/**
+ * An outer-totalistic rule for a two-state (Life-like) automaton: whether a
+ * cell is alive in the next generation only depends on whether it is alive now
+ * and on how many of its neighbors are.
+ * <p>
+ * Rules are written as Golly-style rulestrings, e.g., {@code B3/S23} for
+ * Conway's Game of Life, {@code B36/S23} for HighLife or {@code B2/S} for a
+ * rule where nothing survives. The digits after {@code B} are the neighbor
+ * counts for which a dead cell is born, and the digits after {@code S} those
+ * for which a live cell survives. Letters are case-insensitive and the slash is
+ * optional; the older {@code S/B} notation with digits only (e.g.,
+ * {@code 23/3}) is also accepted.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class Rule {
+	/** The largest neighbor count a rulestring can refer to */
+	public static final int MAX_NEIGHBORS = 8;
+
+	private final int birth; // bit n is set if a dead cell with n alive neighbors is born
+	private final int survival; // bit n is set if a live cell with n alive neighbors survives
+
+	private Rule(int birth, int survival) {
+		this.birth = birth;
+		this.survival = survival;
+	}
+
+	/**
+	 * Parses a rulestring.
+	 *
+	 * @throws IllegalArgumentException if the rulestring is malformed.
+	 */
+	public static Rule parse(String rulestring) {
+		String text = rulestring.strip().toUpperCase();
+
+		if (text.startsWith("/") || (!text.isEmpty() && Character.isDigit(text.charAt(0)))) {
+			// S/B notation, e.g., 23/3
+			int slash = text.indexOf('/');
+			if (slash < 0)
+				throw new IllegalArgumentException("Invalid rule: " + rulestring);
+
+			return new Rule(parseDigits(text.substring(slash + 1), rulestring),
+			    parseDigits(text.substring(0, slash), rulestring));
+		}
+
+		int b = text.indexOf('B');
+		int s = text.indexOf('S');
+		if (b < 0 || s < 0 || text.indexOf('B', b + 1) >= 0 || text.indexOf('S', s + 1) >= 0)
+			throw new IllegalArgumentException("Invalid rule: " + rulestring);
+
+		// Either part may come first (B3/S23 or S23/B3).
+		String births = text.substring(b + 1, s > b ? s : text.length());
+		String survivals = text.substring(s + 1, b > s ? b : text.length());
+
+		return new Rule(parseDigits(stripSlash(births), rulestring),
+		    parseDigits(stripSlash(survivals), rulestring));
+	}
+
+	private static String stripSlash(String part) {
+		return part.endsWith("/") ? part.substring(0, part.length() - 1) : part;
+	}
+
+	private static int parseDigits(String digits, String rulestring) {
+		int mask = 0;
+
+		for (char c : digits.toCharArray()) {
+			if (c < '0' || c > '0' + MAX_NEIGHBORS)
+				throw new IllegalArgumentException("Invalid rule: " + rulestring);
+			mask |= 1 << (c - '0');
+		}
+
+		return mask;
+	}
+
+	/**
+	 * @return whether a dead cell with the given number of alive neighbors is born.
+	 */
+	public boolean birth(int aliveNeighbors) {
+		return (birth >>> aliveNeighbors & 1) != 0;
+	}
+
+	/**
+	 * @return whether a live cell with the given number of alive neighbors
+	 *         survives.
+	 */
+	public boolean survival(int aliveNeighbors) {
+		return (survival >>> aliveNeighbors & 1) != 0;
+	}
+
+	/**
+	 * @return the largest neighbor count mentioned by this rule, or -1 if none.
+	 */
+	public int maxNeighbors() {
+		return 31 - Integer.numberOfLeadingZeros(birth | survival);
+	}
+
+	/**
+	 * Compiles this rule into a lookup table for cells with up to
+	 * {@code maxNeighbors} neighbors. The next state (0 for dead, 1 for alive) of
+	 * a cell in state {@code alive} (0 or 1) with {@code n} alive neighbors is
+	 * {@code table[alive * (maxNeighbors + 1) + n]}, so applying the rule takes a
+	 * single array access and no branches.
+	 */
+	byte[] compile(int maxNeighbors) {
+		int stride = maxNeighbors + 1;
+		byte[] table = new byte[2 * stride];
+
+		for (int n = 0; n < stride; n++) {
+			table[n] = (byte) (birth(n) ? 1 : 0);
+			table[stride + n] = (byte) (survival(n) ? 1 : 0);
+		}
+
+		return table;
+	}
+
+	/**
+	 * Compiles this rule into a lookup table for 3x3 neighborhoods (e.g., the
+	 * Moore neighborhood). The 9 cells are packed into the bits of the index, with
+	 * the cell itself as bit 4, and the entry is the next state of that cell (0 for
+	 * dead, 1 for alive). The bit order of the other cells does not matter, since
+	 * only their number counts.
+	 */
+	byte[] compilePatterns() {
+		byte[] table = new byte[1 << 9];
+
+		for (int pattern = 0; pattern < table.length; pattern++) {
+			boolean alive = (pattern >>> 4 & 1) != 0;
+			int aliveNeighbors = Integer.bitCount(pattern & ~(1 << 4));
+
+			boolean next = alive ? survival(aliveNeighbors) : birth(aliveNeighbors);
+
+			table[pattern] = (byte) (next ? 1 : 0);
+		}
+
+		return table;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof Rule rule && rule.birth == birth && rule.survival == survival;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * birth + survival;
+	}
+
+	/**
+	 * @return the canonical rulestring, e.g., {@code B3/S23}.
+	 */
+	@Override
+	public String toString() {
+		var sb = new StringBuilder("B");
+		for (int n = 0; n <= MAX_NEIGHBORS; n++)
+			if (birth(n))
+				sb.append(n);
+
+		sb.append("/S");
+		for (int n = 0; n <= MAX_NEIGHBORS; n++)
+			if (survival(n))
+				sb.append(n);
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,361 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A graph-based engine for any outer-totalistic (Life-like) rule, on any of the
+ * {@link NeighborTable.Kind neighborhoods}.
+ * <p>
+ * The {@link Rule} is compiled into a small birth/survival lookup table, so the
+ * inner loop only sums the neighbors (cells are stored as 0/1 bytes) and looks
+ * the next state up, without comparing states or branching on the rule. On
+ * the Moore neighborhood, it doesn't even count: the whole 3x3 neighborhood is
+ * looked up at once (see {@link #setPatternLookup}). New variants only need a
+ * rulestring and a neighborhood (see {@link HexLife} and {@link KnightLife}).
+ * <p>
+ * Like {@link GraphLife}, a step only visits the parts of the world where
+ * something changed during the last step, as long as the neighborhood stays
+ * within one row/column of each cell and empty space stays empty (i.e., the
+ * rule does not contain B0). Otherwise every cell is visited.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class RuleLife implements ILife {
+	private final Rule rule;
+	private final NeighborTable.Kind kind;
+
+	private NeighborTable world;
+	private byte[] cells; // row-col indexed, 1 if alive and 0 if dead
+	private byte[] table; // the compiled rule (see Rule.compile())
+	private int stride; // offset of the survival half of the table
+	private int nrows;
+	private int ncols;
+	private long population; // number of alive cells, kept up to date
+
+	private ActiveTiles tiles; // parts of the world that may change, or null to visit them all
+	private int[] changes = new int[16]; // cells changed by the current step
+	private int changeCount;
+
+	// For the 3x3 pattern lookup (see setPatternLookup())
+	private boolean patternLookup;
+	private byte[] flips; // 1 if the center of a 3x3 pattern changes, indexed by its bits
+
+	/**
+	 * Conway's Game of Life (B3/S23) on the Moore neighborhood.
+	 */
+	public RuleLife() {
+		this("B3/S23", NeighborTable.Kind.MOORE);
+	}
+
+	/**
+	 * @param rulestring e.g., {@code B36/S23} (see {@link Rule})
+	 * @param kind       the neighborhood of each cell
+	 * @throws IllegalArgumentException if the rulestring is malformed, or refers
+	 *                                  to more neighbors than a cell has.
+	 */
+	public RuleLife(String rulestring, NeighborTable.Kind kind) {
+		this.rule = Rule.parse(rulestring);
+		this.kind = kind;
+
+		if (rule.maxNeighbors() > kind.neighbors)
+			throw new IllegalArgumentException(
+			    "Rule " + rule + " needs more than " + kind.neighbors + " neighbors");
+
+		setPatternLookup(kind == NeighborTable.Kind.MOORE);
+	}
+
+	/**
+	 * @return the rule this engine applies.
+	 */
+	public Rule rule() {
+		return rule;
+	}
+
+	/**
+	 * Enables or disables the 3x3 pattern lookup. When enabled, the 9 cells of a
+	 * neighborhood are packed into the bits of an index (sliding along each row,
+	 * so only the 3 cells of the next column are read), and a 512-entry table
+	 * tells whether the center cell changes. The inner loop then does no counting
+	 * and no branching besides recording the changes.
+	 * <p>
+	 * Only the Moore neighborhood is laid out as 3x3 squares, so other
+	 * neighborhoods (and grids smaller than 3x3, where a cell can be its own
+	 * neighbor) keep counting. Enabled by default for the Moore neighborhood.
+	 */
+	public final void setPatternLookup(boolean patternLookup) {
+		this.patternLookup = patternLookup;
+
+		if (patternLookup && flips == null) {
+			byte[] patterns = rule.compilePatterns();
+			flips = new byte[patterns.length];
+
+			for (int pattern = 0; pattern < patterns.length; pattern++)
+				flips[pattern] = (byte) (patterns[pattern] ^ (pattern >>> 4 & 1));
+		}
+	}
+
+	@Override
+	public void resize(int nrows, int ncols) {
+		this.world = NeighborTable.of(kind, nrows, ncols, world);
+		this.cells = new byte[nrows * ncols];
+		this.nrows = nrows;
+		this.ncols = ncols;
+
+		// Small grids can give a cell extra neighbors (e.g., the hex grid's seam),
+		// so the table covers every count that can actually occur.
+		this.stride = Math.max(world.maxDegree(), kind.neighbors) + 1;
+		this.table = rule.compile(stride - 1);
+
+		boolean local = kind != NeighborTable.Kind.KNIGHT; // neighbors within one row/column
+		this.tiles = local && !rule.birth(0) ? new ActiveTiles(nrows, ncols) : null;
+
+		clear();
+	}
+
+	/**
+	 * Returns index of cell based on row and col
+	 *
+	 * @param row
+	 * @param col
+	 * @return int cell index
+	 */
+	private int convertToIndex(int row, int col) {
+		return row * ncols + col;
+	}
+
+	/**
+	 * Returns cell's row based on index
+	 *
+	 * @param index
+	 * @return int cell's row
+	 */
+	private int convertToRow(int index) {
+		return index / ncols;
+	}
+
+	/**
+	 * Returns cell's col based on index
+	 *
+	 * @param index
+	 * @return int cell's col
+	 */
+	private int convertToCol(int index) {
+		return index % ncols;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(cells, (byte) 0);
+		population = 0;
+
+		if (tiles != null)
+			tiles.markAll();
+	}
+
+	@Override
+	public void randomize() {
+		population = 0;
+
+		for (int current = 0; current < cells.length; current++) {
+			cells[current] = (byte) (RANDOM.nextBoolean() ? 1 : 0);
+			population += cells[current];
+		}
+
+		if (tiles != null)
+			tiles.markAll();
+	}
+
+	@Override
+	public CellState get(int row, int col) {
+		return cells[convertToIndex(row, col)] != 0 ? CellState.ALIVE : CellState.DEAD;
+	}
+
+	@Override
+	public void set(int row, int col, CellState state) {
+		int current = convertToIndex(row, col);
+		byte alive = (byte) (state == CellState.ALIVE ? 1 : 0); // cells are only ALIVE or DEAD
+
+		if (cells[current] != alive) {
+			population += alive - cells[current];
+			cells[current] = alive;
+
+			if (tiles != null)
+				tiles.markCell(row, col);
+		}
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		advance();
+
+		// Invoke callback for every cell whose new state differs from its old state
+		for (int i = 0; i < changeCount; i++) {
+			int current = changes[i];
+			action.invoke(convertToRow(current), convertToCol(current), stateOf(current));
+		}
+
+		return changeCount > 0;
+	}
+
+	@Override
+	public boolean step(ChangeSet changeSet) {
+		advance();
+
+		changeSet.clear();
+		changeSet.ensureCapacity(changeCount);
+
+		for (int i = 0; i < changeCount; i++) {
+			int current = changes[i];
+			changeSet.add(convertToRow(current), convertToCol(current), stateOf(current));
+		}
+
+		return changeCount > 0;
+	}
+
+	private CellState stateOf(int current) {
+		return cells[current] != 0 ? CellState.ALIVE : CellState.DEAD;
+	}
+
+	/**
+	 * Computes the next generation, leaving the indices of the cells that changed
+	 * in {@code changes}.
+	 */
+	private void advance() {
+		changeCount = 0;
+
+		boolean patterns = patternLookup && kind == NeighborTable.Kind.MOORE && nrows >= 3
+		    && ncols >= 3;
+
+		if (tiles == null) {
+			for (int r = 0; r < nrows; r++)
+				advanceRow(r, 0, ncols, patterns);
+		}
+		else {
+			tiles.beginStep();
+			for (int i = 0; i < tiles.activeCount(); i++) {
+				int tile = tiles.activeTile(i);
+
+				for (int r = tiles.firstRow(tile); r < tiles.lastRow(tile); r++)
+					advanceRow(r, tiles.firstCol(tile), tiles.lastCol(tile), patterns);
+			}
+		}
+
+		// Make needed updates (done afterwards to prevent invalid updates)
+		for (int i = 0; i < changeCount; i++) {
+			int current = changes[i];
+
+			// Every change flips a cell between alive and dead.
+			cells[current] ^= 1;
+			population += 2 * cells[current] - 1;
+		}
+
+		if (tiles != null) {
+			// When much of the world is changing, (nearly) every tile would be marked
+			// anyway, so don't bother finding out which.
+			if (changeCount > cells.length / 16)
+				tiles.markAll();
+			else
+				for (int i = 0; i < changeCount; i++)
+					tiles.markCell(convertToRow(changes[i]), convertToCol(changes[i]));
+		}
+	}
+
+	/**
+	 * Applies the rule to the cells of a row from {@code firstCol} (inclusive) to
+	 * {@code lastCol} (exclusive), recording the ones that change.
+	 */
+	private void advanceRow(int row, int firstCol, int lastCol, boolean patterns) {
+		if (patterns)
+			matchPatterns(row, firstCol, lastCol);
+		else
+			countNeighbors(convertToIndex(row, firstCol), convertToIndex(row, lastCol));
+	}
+
+	/**
+	 * Applies the rule to the cells {@code [start, end)} by counting their
+	 * neighbors.
+	 */
+	private void countNeighbors(int start, int end) {
+		// Locals, so the JIT can keep them in registers.
+		final byte[] cells = this.cells;
+		final byte[] table = this.table;
+		final int[] offsets = world.offsets;
+		final int[] targets = world.targets;
+		final int stride = this.stride;
+
+		for (int current = start; current < end; current++) {
+			int aliveNeighbors = 0;
+			for (int n = offsets[current]; n < offsets[current + 1]; n++)
+				aliveNeighbors += cells[targets[n]];
+
+			if (table[cells[current] * stride + aliveNeighbors] != cells[current])
+				recordChange(current);
+		}
+	}
+
+	/**
+	 * Applies the rule to part of a row with the 3x3 pattern lookup (see
+	 * {@link #setPatternLookup}).
+	 */
+	private void matchPatterns(int row, int firstCol, int lastCol) {
+		final byte[] cells = this.cells;
+		final byte[] flips = this.flips;
+		final int ncols = this.ncols;
+
+		int up = ((row - 1 + nrows) % nrows) * ncols;
+		int middle = row * ncols;
+		int down = ((row + 1) % nrows) * ncols;
+
+		/*
+		 * Each column of the neighborhood takes 3 bits (up, middle, down from high
+		 * to low), with the left column in the highest bits. So the center cell is
+		 * bit 4, and moving one cell to the right shifts in the next column.
+		 */
+		int left = firstCol == 0 ? ncols - 1 : firstCol - 1;
+		int pattern = (cells[up + left] << 5) | (cells[middle + left] << 4)
+		    | (cells[down + left] << 3) | (cells[up + firstCol] << 2)
+		    | (cells[middle + firstCol] << 1) | cells[down + firstCol];
+
+		for (int col = firstCol; col < lastCol; col++) {
+			int right = col + 1 == ncols ? 0 : col + 1;
+			pattern = ((pattern << 3) | (cells[up + right] << 2) | (cells[middle + right] << 1)
+			    | cells[down + right]) & 511;
+
+			if (flips[pattern] != 0)
+				recordChange(middle + col);
+		}
+	}
+
+	private void recordChange(int current) {
+		if (changeCount == changes.length)
+			changes = Arrays.copyOf(changes, 2 * changeCount);
+
+		changes[changeCount++] = current;
+	}
+
+	@Override
+	public void forAllLife(Callback action) {
+		for (int current = 0; current < cells.length; current++)
+			if (cells[current] != 0)
+				action.invoke(convertToRow(current), convertToCol(current), CellState.ALIVE);
+	}
+
+	@Override
+	public long populationCount() {
+		return population;
+	}
+
+	@Override
+	public long populationCount(CellState state) {
+		return StateCounts.ofTwoStates(state, population, cells.length);
+	}
+
+	/**
+	 * @return Description of this model
+	 */
+	public String description() {
+		return "Life-like rule " + rule + " on the " + kind.name().toLowerCase()
+		    + " neighborhood.\nImplemented using a graph and a lookup table compiled from the rulestring.";
+	}
+}
@@ -2,8 +2,6 @@ package model;
 
 import java.util.Arrays;
 
-import edu.princeton.cs.algs4.Queue;
-
 /**
  * A 2D array-based implementation of Conway's Game of Life 
  * (classic ruleset B3/S23).
@@ -16,28 +14,64 @@ public class SimpleLife implements ILife {
 	private int nrows;
 	private int ncols;
 
+	// For parallel stepping (see setParallel())
+	private boolean parallel;
+	private CellState[][] next; // next generation, swapped with world after each step
+	private RowBands bands;
+
+	private ActiveTiles tiles; // parts of the world that may change on the next step
+	private int[] changes = new int[16]; // cells changed by the current step (row-col indexed)
+	private int changeCount;
+	private final StateCounts counts = new StateCounts();
+
 	@Override
 	public void resize(int nrows, int ncols) {
 		this.world = new CellState[nrows][ncols];
 		this.nrows = nrows;
 		this.ncols = ncols;
+		this.next = null; // reallocated on demand
+		this.tiles = new ActiveTiles(nrows, ncols);
 		clear();
 	}
 
+	@Override
+	public boolean supportsParallel() {
+		return true;
+	}
+
+	/**
+	 * Enables or disables parallel stepping. When enabled, each step splits the
+	 * world into bands of rows that are computed concurrently (all of them, since
+	 * the active tiles are not tracked per band). The callback is still invoked on
+	 * the calling thread, but in row-major order, whereas a sequential step
+	 * reports the changes tile by tile. Either way, every changed cell is reported
+	 * exactly once.
+	 */
+	@Override
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	@Override
 	public void clear() {
 		for (var row : world)
 			Arrays.fill(row, CellState.DEAD);
+
+		counts.reset((long) nrows * ncols);
+		tiles.markAll();
 	}
 
 	@Override
 	public void randomize() {
-		for (int r = 0; r < nrows; r++)
-			for (int c = 0; c < ncols; c++)
-				if (RANDOM.nextBoolean())
-					world[r][c] = CellState.ALIVE;
-				else
-					world[r][c] = CellState.DEAD;
+		for (int r = 0; r < nrows; r++) {
+			for (int c = 0; c < ncols; c++) {
+				var state = RANDOM.nextBoolean() ? CellState.ALIVE : CellState.DEAD;
+				counts.change(world[r][c], state);
+				world[r][c] = state;
+			}
+		}
+
+		tiles.markAll();
 	}
 
 	@Override
@@ -47,46 +81,92 @@ public class SimpleLife implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
-		world[row][col] = state;
+		if (world[row][col] != state) {
+			counts.change(world[row][col], state);
+			world[row][col] = state;
+			tiles.markCell(row, col);
+		}
 	}
 
 	@Override
 	public boolean step(Callback action) {
-		Queue<Cell> queue = new Queue<>();
+		if (parallel)
+			return stepParallel(action);
 
-		// Calculate needed updates
-		for (int r = 0; r < nrows; r++) {
-			for (int c = 0; c < ncols; c++) {
-				int aliveNeighbors = countNeighbors(r, c);
+		changeCount = 0;
 
-				if (get(r, c) == CellState.ALIVE) {
-					if (aliveNeighbors < 2 || aliveNeighbors > 3) // Alive cells only stay alive if
-					                                              // between 2-3 neighbors.
-						queue.enqueue(new Cell(r, c, CellState.DEAD));
-				}
-				else { // if (get(r, c) == CellState.DEAD)
-					if (aliveNeighbors == 3) // Dead cell with 3 neighbors becomes alive.
-						queue.enqueue(new Cell(r, c, CellState.ALIVE));
+		// Calculate needed updates (only where something changed nearby last step)
+		tiles.beginStep();
+		for (int i = 0; i < tiles.activeCount(); i++) {
+			int tile = tiles.activeTile(i);
+
+			for (int r = tiles.firstRow(tile); r < tiles.lastRow(tile); r++) {
+				for (int c = tiles.firstCol(tile); c < tiles.lastCol(tile); c++) {
+					if (nextState(r, c) != world[r][c])
+						recordChange(r * ncols + c);
 				}
 			}
 		}
 
-		boolean worldChanged = false;
-
 		// Make needed updates (done afterwards to prevent invalid updates)
-		while (!queue.isEmpty()) {
-			Cell cell = queue.dequeue();
+		for (int i = 0; i < changeCount; i++) {
+			int r = changes[i] / ncols;
+			int c = changes[i] % ncols;
+
+			// Every change flips a cell between ALIVE and DEAD.
+			var state = world[r][c] == CellState.ALIVE ? CellState.DEAD : CellState.ALIVE;
+			action.invoke(r, c, state);
+			set(r, c, state); // also marks its neighborhood
+		}
 
-			// Invoke callback if a new state differs from old state
-			if (cell.state() != get(cell.row(), cell.col())) {
-				action.invoke(cell.row(), cell.col(), cell.state());
-				worldChanged = true;
-			}
+		return changeCount > 0;
+	}
+
+	private void recordChange(int index) {
+		if (changeCount == changes.length)
+			changes = Arrays.copyOf(changes, 2 * changeCount);
 
-			set(cell.row(), cell.col(), cell.state());
+		changes[changeCount++] = index;
+	}
+
+	/**
+	 * Parallel version of {@link #step}. Each band writes its rows of the next
+	 * generation into a second buffer, then the buffers are swapped.
+	 */
+	private boolean stepParallel(Callback action) {
+		if (next == null) {
+			next = new CellState[nrows][ncols];
+			bands = new RowBands(nrows);
 		}
 
-		return worldChanged;
+		bands.run((band, firstRow, lastRow) -> {
+			for (int r = firstRow; r < lastRow; r++) {
+				for (int c = 0; c < ncols; c++) {
+					var state = nextState(r, c);
+					next[r][c] = state;
+
+					if (state != world[r][c])
+						bands.record(band, r * ncols + c);
+				}
+			}
+		});
+
+		// Swap buffers (done afterwards to prevent invalid updates)
+		var temp = world;
+		world = next;
+		next = temp;
+
+		// Notify the caller from this thread only.
+		tiles.beginStep(); // every tile was visited
+		bands.forEachChange(index -> {
+			int r = index / ncols;
+			int c = index % ncols;
+			counts.change(next[r][c], world[r][c]); // next now holds the old generation
+			tiles.markCell(r, c);
+			action.invoke(r, c, world[r][c]);
+		});
+
+		return bands.anyChanges();
 	}
 
 	@Override
@@ -99,14 +179,29 @@ public class SimpleLife implements ILife {
 
 	@Override
 	public long populationCount() {
-		long count = 0;
+		return counts.get(CellState.ALIVE);
+	}
 
-		for (var row : world)
-			for (var state : row)
-				if (state == CellState.ALIVE)
-					count++;
+	@Override
+	public long populationCount(CellState state) {
+		return counts.get(state);
+	}
 
-		return count;
+	/**
+	 * Applies the rules to a single cell.
+	 *
+	 * @return the state of the cell in the next generation
+	 */
+	private CellState nextState(int row, int col) {
+		int aliveNeighbors = countNeighbors(row, col);
+
+		if (world[row][col] == CellState.ALIVE) {
+			// Alive cells only stay alive if between 2-3 neighbors.
+			return aliveNeighbors < 2 || aliveNeighbors > 3 ? CellState.DEAD : CellState.ALIVE;
+		}
+
+		// Dead cell with 3 neighbors becomes alive.
+		return aliveNeighbors == 3 ? CellState.ALIVE : CellState.DEAD;
 	}
 
 	/**
@@ -125,14 +220,17 @@ public class SimpleLife implements ILife {
 		 *
 		 * See: https://en.wikipedia.org/wiki/Modulo#In_programming_languages
 		 */
-		int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
-		int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
+		for (int dr = -1; dr <= 1; dr++) {
+			int r = (row + dr + nrows) % nrows;
+
+			for (int dc = -1; dc <= 1; dc++) {
+				int c = (col + dc + ncols) % ncols;
 
-		for (int r : rowOffsets)
-			for (int c : colOffsets)
 				if (r != row || c != col) // Disclude current cell
-					if (get(r, c) == CellState.ALIVE)
+					if (world[r][c] == CellState.ALIVE)
 						count++;
+			}
+		}
 
 		return count;
 	}
@@ -1,12 +1,19 @@
 package model;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * An implementation of Conway's Game of Life (classic ruleset B3/S23) using a
  * sparse representation of the world..
+ * <p>
+ * By default the world wraps around like the other models. Constructed with
+ * {@code wrapAround == false}, it instead becomes an unbounded plane spanning
+ * the whole 32-bit range of rows and columns. The {@code nrows x ncols} grid is
+ * then a window onto that plane, initially centered on its origin (like
+ * {@link HashLife}), which can be moved (see {@link #setViewport}); cells that
+ * leave the window keep evolving outside of it. Locations never wrap around:
+ * once life reaches the edge of the 32-bit range, the world stops evolving, and
+ * {@link #step(Callback)} reports no change (like any other world that
+ * stalled). The keys stay single longs, which is what keeps the live set
+ * cheap; a plane of 64-bit rows and columns would need twice as wide keys.
  * 
  * @author Paul Nguyen
  * @author Tommy Collier
@@ -15,38 +22,104 @@ public class SparseLife implements ILife {
 	private int nrows;
 	private int ncols;
 
-	/** Stores only the (row, col) locations of live cells */
-	private Set<Loc> liveSet;
+	private final boolean wrapAround;
+
+	// World location of the top-left cell of the grid
+	private long viewTop;
+	private long viewLeft;
+
+	/**
+	 * Stores only the locations of live cells, packed into longs (see
+	 * {@link #loc}). Every key maps to 1.
+	 */
+	private LongIntHashMap liveSet;
+
+	/** Next generation's live set, swapped with liveSet after each step */
+	private LongIntHashMap nextGeneration;
+
+	/** Population counts per location, reused across steps */
+	private LongIntHashMap populationCounts;
+
+	/** Number of live cells in view (all of them if the world wraps around) */
+	private long viewPopulation;
 
 	/**
-	 * Use this method to create an index pair instead of {@link Loc#Loc new
-	 * Loc(...)} to normalize the indices / adjust for grid wrap-around.
+	 * Use this method to create a location key to normalize the indices / adjust
+	 * for grid wrap-around. The row goes in the upper 32 bits and the column in
+	 * the lower 32 bits.
 	 */
-	private Loc loc(int row, int col) {
-		return new Loc(Math.floorMod(row, nrows), Math.floorMod(col, ncols));
+	private long loc(int row, int col) {
+		if (wrapAround)
+			return pack(Math.floorMod(row, nrows), Math.floorMod(col, ncols));
+		else
+			return pack(row, col);
 	}
 
 	/**
-	 * A pair of ints representing the grid location of a live cell. Use
-	 * {@link SparseLife#loc loc(...)} instead of {@code new Loc(...)}
+	 * Converts grid indices (as used by the {@link ILife} methods) to a location
+	 * key in the world.
 	 */
-	private record Loc(int row, int col) {
-		/**
-		 * Returns an array of the locations of the 3x3 neighborhood centered at this
-		 * location.
-		 */
-		Loc[] neighborhood(SparseLife context) {
-			return new Loc[] { context.loc(row - 1, col - 1), // NW
-			    context.loc(row - 1, col + 0), // N
-			    context.loc(row - 1, col + 1), // NE
-			    context.loc(row + 0, col - 1), // W
-			    this, // assume this location is already normalized
-			    context.loc(row + 0, col + 1), // E
-			    context.loc(row + 1, col - 1), // SW
-			    context.loc(row + 1, col + 0), // S
-			    context.loc(row + 1, col + 1), // SE
-			};
-		}
+	private long gridToLoc(int row, int col) {
+		// The viewport is kept within the 32-bit range (see setViewport()).
+		return loc((int) (viewTop + row), (int) (viewLeft + col));
+	}
+
+	/** Grid row of a location, which may be outside [0, nrows) if unbounded */
+	private long gridRowOf(long loc) {
+		long row = rowOf(loc) - viewTop;
+		return wrapAround ? Math.floorMod(row, nrows) : row;
+	}
+
+	/** Grid column of a location, which may be outside [0, ncols) if unbounded */
+	private long gridColOf(long loc) {
+		long col = colOf(loc) - viewLeft;
+		return wrapAround ? Math.floorMod(col, ncols) : col;
+	}
+
+	/** Whether a location is visible in the grid */
+	private boolean inView(long loc) {
+		if (wrapAround)
+			return true;
+
+		long row = gridRowOf(loc);
+		long col = gridColOf(loc);
+		return row >= 0 && row < nrows && col >= 0 && col < ncols;
+	}
+
+	/**
+	 * Whether a location is on the edge of the 32-bit range, where some of its
+	 * neighbors can't be represented.
+	 */
+	private static boolean onEdge(int row, int col) {
+		return row == Integer.MIN_VALUE || row == Integer.MAX_VALUE || col == Integer.MIN_VALUE
+		    || col == Integer.MAX_VALUE;
+	}
+
+	private static long pack(int row, int col) {
+		return ((long) row << 32) | (col & 0xFFFFFFFFL);
+	}
+
+	private static int rowOf(long loc) {
+		return (int) (loc >> 32);
+	}
+
+	private static int colOf(long loc) {
+		return (int) loc;
+	}
+
+	/**
+	 * A wrap-around world, like the other models.
+	 */
+	public SparseLife() {
+		this(true);
+	}
+
+	/**
+	 * @param wrapAround {@code false} for an unbounded plane, of which the grid
+	 *                   only shows a window
+	 */
+	public SparseLife(boolean wrapAround) {
+		this.wrapAround = wrapAround;
 	}
 
 	@Override
@@ -55,12 +128,44 @@ public class SparseLife implements ILife {
 
 		this.nrows = nrows;
 		this.ncols = ncols;
-		this.liveSet = new HashSet<>();
+
+		// Center the window on the origin of an unbounded plane.
+		this.viewTop = wrapAround ? 0 : -(nrows / 2);
+		this.viewLeft = wrapAround ? 0 : -(ncols / 2);
+		this.liveSet = new LongIntHashMap();
+		this.nextGeneration = new LongIntHashMap();
+		this.populationCounts = new LongIntHashMap();
+		this.viewPopulation = 0;
+	}
+
+	@Override
+	public boolean hasViewport() {
+		return !wrapAround;
+	}
+
+	/**
+	 * Moves the window of an unbounded world (a wrap-around world always shows
+	 * all of itself). The window is kept within the 32-bit range of locations.
+	 */
+	@Override
+	public void setViewport(long top, long left) {
+		if (wrapAround)
+			return;
+
+		this.viewTop = Math.clamp(top, Integer.MIN_VALUE, Integer.MAX_VALUE - Math.max(nrows - 1, 0));
+		this.viewLeft = Math.clamp(left, Integer.MIN_VALUE, Integer.MAX_VALUE - Math.max(ncols - 1, 0));
+
+		// The only time the live cells in view are counted rather than kept track of
+		viewPopulation = 0;
+		for (int slot = 0; slot < liveSet.capacity(); slot++)
+			if (liveSet.valueAt(slot) != 0 && inView(liveSet.keyAt(slot)))
+				viewPopulation++;
 	}
 
 	@Override
 	public void clear() {
 		liveSet.clear();
+		viewPopulation = 0;
 	}
 
 	@Override
@@ -70,12 +175,14 @@ public class SparseLife implements ILife {
 		for (int r = 0; r < nrows; r++)
 			for (int c = 0; c < ncols; c++)
 				if (RANDOM.nextBoolean())
-					liveSet.add(loc(r, c));
+					liveSet.put(gridToLoc(r, c), 1);
+
+		viewPopulation = liveSet.size();
 	}
 
 	@Override
 	public CellState get(int row, int col) {
-		if (liveSet.contains(loc(row, col)))
+		if (liveSet.containsKey(gridToLoc(row, col)))
 			return CellState.ALIVE;
 		else
 			return CellState.DEAD;
@@ -83,12 +190,19 @@ public class SparseLife implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
+		int before = liveSet.size();
+
 		if (state == CellState.ALIVE)
-			liveSet.add(loc(row, col));
+			liveSet.put(gridToLoc(row, col), 1);
 		else // (state == CellState.DEAD)
-			liveSet.remove(loc(row, col));
+			liveSet.remove(gridToLoc(row, col));
+
+		viewPopulation += liveSet.size() - before;
 	}
 
+	/** Added to a live cell's own count to mark it as alive (see step()) */
+	private static final int PRESENT = 16;
+
 	@Override
 	public boolean step(Callback action) {
 		/*
@@ -96,28 +210,50 @@ public class SparseLife implements ILife {
 		 * need to consider are the current live cells and their immediate neighbors.
 		 * All other cells will remain dead.
 		 *
-		 * First, for each live cell, we create a counter mapping the (row, col) of
-		 * every cell that has potential for change to the population count of the 3x3
+		 * First, for each live cell, we create a counter mapping the location of every
+		 * cell that has potential for change to the population count of the 3x3
 		 * neighborhood centered at that cell's location.
 		 *
 		 * The population count differ from neighbor count in that it includes the
-		 * central cell.
+		 * central cell. The central cell also adds PRESENT to its own counter, so that
+		 * the counter alone tells whether a cell is currently alive.
 		 */
-		var populationCounts = new HashMap<Loc, Integer>();
+		populationCounts.clear();
 
 		// For each live cell, propagate +1 to all 9 cells in its neighborhood.
-		for (var loc : liveSet)
-			for (var neighbor : loc.neighborhood(this))
-				populationCounts.merge(neighbor, 1, Integer::sum);
+		for (int slot = 0; slot < liveSet.capacity(); slot++) {
+			if (liveSet.valueAt(slot) == 0)
+				continue;
+
+			long loc = liveSet.keyAt(slot);
+			int row = rowOf(loc);
+			int col = colOf(loc);
+
+			// Stall before anything changed rather than wrapping around.
+			if (!wrapAround && onEdge(row, col))
+				return false;
+
+			for (int dr = -1; dr <= 1; dr++)
+				for (int dc = -1; dc <= 1; dc++)
+					populationCounts.add(loc(row + dr, col + dc), 1);
+
+			populationCounts.add(loc, PRESENT);
+		}
 
 		// Compute the new live set.
-		var nextGeneration = new HashSet<Loc>();
+		nextGeneration.clear();
 		boolean worldChanged = false;
+		long nextViewPopulation = 0;
 
-		for (var entry : populationCounts.entrySet()) {
-			var loc = entry.getKey();
-			int popCount = entry.getValue();
-			boolean presentLife = liveSet.contains(loc);
+		for (int slot = 0; slot < populationCounts.capacity(); slot++) {
+			int count = populationCounts.valueAt(slot);
+
+			if (count == 0)
+				continue;
+
+			long loc = populationCounts.keyAt(slot);
+			int popCount = count % PRESENT;
+			boolean presentLife = count >= PRESENT;
 
 			/*
 			 * This is the condition for life in the standard Conway ruleset (B3/S23)
@@ -125,36 +261,113 @@ public class SparseLife implements ILife {
 			 */
 			boolean futureLife = (popCount == 3) || (presentLife && popCount == 4);
 
-			if (futureLife)
-				nextGeneration.add(loc);
+			if (futureLife) {
+				nextGeneration.put(loc, 1);
+
+				if (inView(loc))
+					nextViewPopulation++;
+			}
 
-			// Notify caller if there is a state change for this cell.
+			// Notify caller if there is a state change for this cell (in view).
 			if (futureLife != presentLife) {
-				var state = futureLife ? CellState.ALIVE : CellState.DEAD;
-				action.invoke(loc.row(), loc.col(), state);
 				worldChanged = true;
+
+				if (inView(loc)) {
+					var state = futureLife ? CellState.ALIVE : CellState.DEAD;
+					action.invoke((int) gridRowOf(loc), (int) gridColOf(loc), state);
+				}
 			}
 		}
 
+		var temp = liveSet;
 		liveSet = nextGeneration;
+		nextGeneration = temp;
+		viewPopulation = nextViewPopulation;
+
 		return worldChanged;
 	}
 
+	/**
+	 * Executes an action for all live cells in view, using grid indices.
+	 */
 	@Override
 	public void forAllLife(Callback action) {
-		for (var loc : liveSet)
-			action.invoke(loc.row(), loc.col(), CellState.ALIVE);
+		for (int slot = 0; slot < liveSet.capacity(); slot++) {
+			long loc = liveSet.keyAt(slot);
+
+			if (liveSet.valueAt(slot) != 0 && inView(loc))
+				action.invoke((int) gridRowOf(loc), (int) gridColOf(loc), CellState.ALIVE);
+		}
 	}
 
+	/**
+	 * An unbounded world has life outside of the grid, which setting cells of the
+	 * grid back does not rewind.
+	 */
+	@Override
+	public boolean isRewindable() {
+		return wrapAround;
+	}
+
+	/**
+	 * Returns the smallest rectangle of an unbounded world containing all live
+	 * cells, in world locations (see {@link ILife#boundingBox()}).
+	 */
+	@Override
+	public long[] boundingBox() {
+		if (wrapAround || liveSet.size() == 0)
+			return null;
+
+		long top = Long.MAX_VALUE, left = Long.MAX_VALUE;
+		long bottom = Long.MIN_VALUE, right = Long.MIN_VALUE;
+
+		for (int slot = 0; slot < liveSet.capacity(); slot++) {
+			if (liveSet.valueAt(slot) == 0)
+				continue;
+
+			long loc = liveSet.keyAt(slot);
+			top = Math.min(top, rowOf(loc));
+			bottom = Math.max(bottom, rowOf(loc));
+			left = Math.min(left, colOf(loc));
+			right = Math.max(right, colOf(loc));
+		}
+
+		return new long[] { top, left, bottom, right };
+	}
+
+	/**
+	 * @return the number of living cells in the whole world (including those out of
+	 *         view).
+	 */
 	@Override
 	public long populationCount() {
 		return liveSet.size();
 	}
 
+	/**
+	 * Counts the cells in view (see {@link ILife#populationCount(CellState)}).
+	 */
+	@Override
+	public long populationCount(CellState state) {
+		return StateCounts.ofTwoStates(state, viewPopulation, (long) nrows * ncols);
+	}
+
+	/**
+	 * Only the live cells take memory, so the largest grids fit (as long as they
+	 * are not too crowded).
+	 */
+	@Override
+	public long maxCells() {
+		return 100_000_000; // 10000 x 10000
+	}
+
 	/**
 	 * @return Description of this model
 	 */
 	public String description() {
-		return "Conway's Game of Life.\nImplemented using a set storing the locations of live cells.";
+		if (wrapAround)
+			return "Conway's Game of Life.\nImplemented using a hash table storing the locations of live cells.";
+		else
+			return "Conway's Game of Life on an unbounded plane.\nImplemented using a hash table storing the locations of live cells.";
 	}
 }
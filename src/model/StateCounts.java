@@ -0,0 +1,56 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The number of cells in each state, kept up to date by a model as its cells
+ * change (instead of scanning the whole world whenever a count is needed).
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class StateCounts {
+	private final long[] counts = new long[CellState.values().length];
+
+	/**
+	 * Starts over with every cell dead.
+	 *
+	 * @param area number of cells in the world
+	 */
+	void reset(long area) {
+		Arrays.fill(counts, 0);
+		counts[CellState.DEAD.ordinal()] = area;
+	}
+
+	/**
+	 * Records that a cell changed state (which may be the same).
+	 */
+	void change(CellState from, CellState to) {
+		counts[from.ordinal()]--;
+		counts[to.ordinal()]++;
+	}
+
+	/**
+	 * @return the number of cells in the given state.
+	 */
+	long get(CellState state) {
+		return counts[state.ordinal()];
+	}
+
+	/**
+	 * Counts the cells in a given state for models whose cells are only ever
+	 * {@code ALIVE} or {@code DEAD}, which only need to keep track of the number
+	 * of live cells.
+	 *
+	 * @param alive number of live cells in the grid
+	 * @param area  number of cells in the grid
+	 */
+	static long ofTwoStates(CellState state, long alive, long area) {
+		if (state == CellState.ALIVE)
+			return alive;
+		else if (state == CellState.DEAD)
+			return area - alive;
+		else
+			return 0;
+	}
+}
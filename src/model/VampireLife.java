@@ -3,8 +3,6 @@ package model;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import edu.princeton.cs.algs4.BreadthFirstPaths;
-import edu.princeton.cs.algs4.Graph;
 import edu.princeton.cs.algs4.Queue;
 
 /**
@@ -15,33 +13,26 @@ import edu.princeton.cs.algs4.Queue;
  * @author Paul Nguyen
  */
 public class VampireLife implements ILife {
-	private Graph world;
+	private NeighborTable world;
 	private CellState[] cells; // row-col indexed
+	private final StateCounts counts = new StateCounts();
 	private int nrows;
 	private int ncols;
-	private int[][] vampireTargets; // row-col indexed
+	private int[] distTo; // distance to the nearest alive cell, for every cell
+	private int[] bfsQueue; // scratch space for breadth-first searches
 	private int vampireCount = 0;
 	private static final CellState COLOR_1 = CellState.RED;
 
 	@Override
 	public void resize(int nrows, int ncols) {
-		this.world = new Graph(nrows * ncols);
+		this.world = NeighborTable.of(NeighborTable.Kind.MOORE, nrows, ncols, world);
 		this.cells = new CellState[nrows * ncols];
-		this.vampireTargets = new int[nrows * ncols][2];
+		this.distTo = new int[nrows * ncols];
+		this.bfsQueue = new int[nrows * ncols];
 		this.nrows = nrows;
 		this.ncols = ncols;
 
 		clear();
-
-		// Initialize edges/neighbors
-		for (int current = 0; current < cells.length; current++)
-			initializeNeighbors(current);
-
-		// Initialize vampire targets
-		for (int i = 0; i < vampireTargets.length; i++) {
-			vampireTargets[i][0] = -1; // Target
-			vampireTargets[i][1] = 0; // Amount of steps spent chasing target.
-		}
 	}
 
 	/**
@@ -75,57 +66,22 @@ public class VampireLife implements ILife {
 		return index % ncols;
 	}
 
-	/**
-	 * Adds neighbor edges to given cell.
-	 *
-	 * @param index
-	 */
-	private void initializeNeighbors(int index) {
-		int row = convertToRow(index);
-		int col = convertToCol(index);
-
-		int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
-		int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
-
-		for (int r : rowOffsets)
-			for (int c : colOffsets)
-				if (r != row || c != col) { // Disclude current cell
-					int neighbor = convertToIndex(r, c);
-					if (hasEdge(index, neighbor) != true)
-						world.addEdge(index, neighbor);
-				}
-	}
-
-	/**
-	 * Checks if vertex already linked to neighbor.
-	 *
-	 * @param index
-	 * @param neighbor
-	 * @return boolean true/false linked to neighbor
-	 */
-	private boolean hasEdge(int index, int neighbor) {
-		for (int n : world.adj(index))
-			if (n == neighbor)
-				return true;
-		return false;
-	}
-
 	@Override
 	public void clear() {
 		Arrays.fill(cells, CellState.DEAD);
-		vampireTargets = new int[nrows * ncols][2];
+		counts.reset(cells.length);
 	}
 
 	@Override
 	public void randomize() {
 		for (int current = 0; current < cells.length; current++)
 			if (RANDOM.nextBoolean())
-				cells[current] = CellState.ALIVE;
+				setCell(current, CellState.ALIVE);
 			else
-				cells[current] = CellState.DEAD;
+				setCell(current, CellState.DEAD);
 
 		// Generate 1 vampire.
-		cells[RANDOM.nextInt(cells.length)] = COLOR_1;
+		setCell(RANDOM.nextInt(cells.length), COLOR_1);
 	}
 
 	@Override
@@ -135,62 +91,45 @@ public class VampireLife implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
-		cells[convertToIndex(row, col)] = state;
+		setCell(convertToIndex(row, col), state);
+	}
+
+	private void setCell(int current, CellState state) {
+		counts.change(cells[current], state);
+		cells[current] = state;
 	}
 
 	@Override
 	public boolean step(Callback action) {
 		Queue<Cell> queue = new Queue<>();
 
+		// Whether distTo holds the distances to the alive cells of this generation.
+		// They are computed on demand, once for all the vampires (the cells only change
+		// once the whole step is computed).
+		boolean searched = false;
+
 		// Calculate needed updates
 		for (int current = 0; current < cells.length; current++) {
 			// If cell is vampire
 			if ((cells[current] == COLOR_1)) {
-				// Find alive cells
-				ArrayList<Integer> aliveCells = new ArrayList<>();
-				for (int cell = 0; cell < cells.length; cell++)
-					if (cells[cell] == CellState.ALIVE)
-						aliveCells.add(cell);
-
 				int oldRow = convertToRow(current);
 				int oldCol = convertToCol(current);
 
 				// if vampire count goes over 4, some die. Viago, Vladislav, Deacon and Petyr forever.
 				if (vampireCount > 4) {
 					queue.enqueue(new Cell(oldRow, oldCol, CellState.DEAD));
-					vampireTargets[current][0] = -1; // Reset target
-					vampireTargets[current][1] = 0; // Reset target step count
 					vampireCount--;
 				}
 				// Else if there's alive cells to infect, get em.
-				else if (aliveCells.size() > 0) {
-					BreadthFirstPaths bfs = new BreadthFirstPaths(world, current);
-
-					// If current target has been chased too long or it hasn't been found yet, get new one.
-					if (vampireTargets[current][1] > 5 || vampireTargets[current][0] == -1) {
-						vampireTargets[current][1] = 0; // Reset target step count
-						vampireTargets[current][0] = aliveCells.get(0);
-						int closestDistance = bfs.distTo(vampireTargets[current][0]);
-
-						for (int i = 1; i < aliveCells.size(); i++) {
-							int currentCell = aliveCells.get(i);
-							int currentDistance = bfs.distTo(aliveCells.get(i));
-							if (currentDistance < closestDistance)
-								vampireTargets[current][0] = currentCell;
-						}
-					}
-					// Else keep current target and record that its been pursued while dead again.
-					else {
-						if (cells[vampireTargets[current][0]] == CellState.DEAD)
-							vampireTargets[current][1]++;
+				else if (counts.get(CellState.ALIVE) > 0) {
+					if (!searched) {
+						world.nearestSourceSearch(cell -> cells[cell] == CellState.ALIVE, distTo,
+						    bfsQueue);
+						searched = true;
 					}
 
-					// Get the next position.
-					var path = bfs.pathTo(vampireTargets[current][0]).iterator();
-					path.next();
-					int nextPosition = current;
-					if (path.hasNext())
-						nextPosition = path.next();
+					// Head for the nearest alive cell.
+					int nextPosition = world.downhill(current, distTo);
 
 					// Ensure vampire only moves into empty/dead space.
 					// if next position not empty, pick a random empty position or stay in place.
@@ -199,8 +138,8 @@ public class VampireLife implements ILife {
 						ArrayList<Integer> availablePositions = new ArrayList<Integer>();
 						availablePositions.add(current);
 
-						var neighbors = world.adj(current);
-						for (int neighbor : neighbors) {
+						for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++) {
+							int neighbor = world.targets[n];
 							if (cells[neighbor] == CellState.DEAD)
 								availablePositions.add(neighbor);
 						}
@@ -216,12 +155,6 @@ public class VampireLife implements ILife {
 
 						queue.enqueue(new Cell(oldRow, oldCol, CellState.DEAD));
 						queue.enqueue(new Cell(newRow, newCol, COLOR_1));
-
-						// Set new vampire target values
-						vampireTargets[convertToIndex(newRow, newCol)][0] = vampireTargets[current][0];
-						vampireTargets[convertToIndex(newRow, newCol)][1] = vampireTargets[current][1];
-						vampireTargets[current][0] = -1;
-						vampireTargets[current][1] = 0;
 					}
 					// If not moving, stay in place
 					else {
@@ -237,7 +170,8 @@ public class VampireLife implements ILife {
 			else {
 				// Count amount of alive neighbors
 				int aliveNeighbors = 0;
-				for (int neighbor : world.adj(current)) {
+				for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++) {
+					int neighbor = world.targets[n];
 					if (cells[neighbor] == CellState.ALIVE)
 						aliveNeighbors++;
 
@@ -246,7 +180,8 @@ public class VampireLife implements ILife {
 
 				// Check if there's a vampire neighbor
 				boolean vampireNeighbor = false;
-				for (int neighbor : world.adj(current)) {
+				for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++) {
+					int neighbor = world.targets[n];
 					if (cells[neighbor] == COLOR_1)
 						vampireNeighbor = true;
 				}
@@ -259,8 +194,6 @@ public class VampireLife implements ILife {
 					if (vampireNeighbor) {// If cell has a vampire neighbor, cell becomes a vampire
 						queue.enqueue(new Cell(row, col, COLOR_1));
 						vampireCount++;
-						vampireTargets[current][0] = -1; // Reset target
-						vampireTargets[current][1] = 0; // Reset target step count
 					}
 					else if (aliveNeighbors < 2 || aliveNeighbors > 3) // Alive cells only stay alive if between 2-3 neighbors.
 						queue.enqueue(new Cell(row, col, CellState.DEAD));
@@ -304,13 +237,21 @@ public class VampireLife implements ILife {
 
 	@Override
 	public long populationCount() {
-		long count = 0;
+		return counts.get(CellState.ALIVE) + counts.get(COLOR_1);
+	}
 
-		for (var state : cells)
-			if (state == CellState.ALIVE || state == COLOR_1)
-				count++;
+	@Override
+	public long populationCount(CellState state) {
+		return counts.get(state);
+	}
 
-		return count;
+	/**
+	 * The number of vampires made by the last step is not part of the cells, so
+	 * setting cells back does not rewind it.
+	 */
+	@Override
+	public boolean isRewindable() {
+		return false;
 	}
 	
 	/**
@@ -3,8 +3,6 @@ package model;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import edu.princeton.cs.algs4.BreadthFirstPaths;
-import edu.princeton.cs.algs4.Graph;
 import edu.princeton.cs.algs4.Queue;
 
 /**
@@ -15,33 +13,26 @@ import edu.princeton.cs.algs4.Queue;
  * @author Paul Nguyen
  */
 public class ZombieLife implements ILife {
-	private Graph world;
+	private NeighborTable world;
 	private CellState[] cells; // row-col indexed
+	private final StateCounts counts = new StateCounts();
 	private int nrows;
 	private int ncols;
-	private int[][] zombieTargets; // row-col indexed
+	private int[] distTo; // distance to the nearest alive cell, for every cell
+	private int[] bfsQueue; // scratch space for breadth-first searches
 	private int zombieCount = 0;
 	private static final CellState COLOR_1 = CellState.GREEN;
 
 	@Override
 	public void resize(int nrows, int ncols) {
-		this.world = new Graph(nrows * ncols);
+		this.world = NeighborTable.of(NeighborTable.Kind.MOORE, nrows, ncols, world);
 		this.cells = new CellState[nrows * ncols];
-		this.zombieTargets = new int[nrows * ncols][2];
+		this.distTo = new int[nrows * ncols];
+		this.bfsQueue = new int[nrows * ncols];
 		this.nrows = nrows;
 		this.ncols = ncols;
 
 		clear();
-
-		// Initialize edges/neighbors
-		for (int current = 0; current < cells.length; current++)
-			initializeNeighbors(current);
-
-		// Initialize zombie targets
-		for (int i = 0; i < zombieTargets.length; i++) {
-			zombieTargets[i][0] = -1; // Target
-			zombieTargets[i][1] = 0; // Amount of steps spent chasing target.
-		}
 	}
 
 	/**
@@ -75,57 +66,22 @@ public class ZombieLife implements ILife {
 		return index % ncols;
 	}
 
-	/**
-	 * Adds neighbor edges to given cell.
-	 *
-	 * @param index
-	 */
-	private void initializeNeighbors(int index) {
-		int row = convertToRow(index);
-		int col = convertToCol(index);
-
-		int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
-		int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
-
-		for (int r : rowOffsets)
-			for (int c : colOffsets)
-				if (r != row || c != col) { // Disclude current cell
-					int neighbor = convertToIndex(r, c);
-					if (hasEdge(index, neighbor) != true)
-						world.addEdge(index, neighbor);
-				}
-	}
-
-	/**
-	 * Checks if vertex already linked to neighbor.
-	 *
-	 * @param index
-	 * @param neighbor
-	 * @return boolean true/false linked to neighbor
-	 */
-	private boolean hasEdge(int index, int neighbor) {
-		for (int n : world.adj(index))
-			if (n == neighbor)
-				return true;
-		return false;
-	}
-
 	@Override
 	public void clear() {
 		Arrays.fill(cells, CellState.DEAD);
-		zombieTargets = new int[nrows * ncols][2];
+		counts.reset(cells.length);
 	}
 
 	@Override
 	public void randomize() {
 		for (int current = 0; current < cells.length; current++)
 			if (RANDOM.nextBoolean())
-				cells[current] = CellState.ALIVE;
+				setCell(current, CellState.ALIVE);
 			else
-				cells[current] = CellState.DEAD;
+				setCell(current, CellState.DEAD);
 
 		// Generate 1 zombie.
-		cells[RANDOM.nextInt(cells.length)] = COLOR_1;
+		setCell(RANDOM.nextInt(cells.length), COLOR_1);
 	}
 
 	@Override
@@ -135,63 +91,45 @@ public class ZombieLife implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
-		cells[convertToIndex(row, col)] = state;
+		setCell(convertToIndex(row, col), state);
+	}
+
+	private void setCell(int current, CellState state) {
+		counts.change(cells[current], state);
+		cells[current] = state;
 	}
 
 	@Override
 	public boolean step(Callback action) {
 		Queue<Cell> queue = new Queue<>();
 
+		// Whether distTo holds the distances to the alive cells of this generation.
+		// They are computed on demand, once for all the zombies (the cells only change
+		// once the whole step is computed).
+		boolean searched = false;
+
 		// Calculate needed updates
 		for (int current = 0; current < cells.length; current++) {
 			// If cell is ZOMBIE
 			if ((cells[current] == COLOR_1)) {
-				// Find alive cells
-				ArrayList<Integer> aliveCells = new ArrayList<>();
-				for (int cell = 0; cell < cells.length; cell++)
-					if (cells[cell] == CellState.ALIVE)
-						aliveCells.add(cell);
-
 				int oldRow = convertToRow(current);
 				int oldCol = convertToCol(current);
 
 				// if zombie count gets too high, they randomly (50-50) starve.
-				if ((double) zombieCount / aliveCells.size() > 1.5 && RANDOM.nextBoolean()) {
+				if ((double) zombieCount / counts.get(CellState.ALIVE) > 1.5 && RANDOM.nextBoolean()) {
 					queue.enqueue(new Cell(oldRow, oldCol, CellState.DEAD));
-					zombieTargets[current][0] = -1; // Reset target
-					zombieTargets[current][1] = 0; // Reset target step count
 					zombieCount--;
 				}
 				// Else if there's alive cells to infect, get em.
-				else if (aliveCells.size() > 0) {
-					BreadthFirstPaths bfs = new BreadthFirstPaths(world, current);
-
-					// If current target has been chased too long or it hasn't been found yet, get
-					// new one.
-					if (zombieTargets[current][1] > 5 || zombieTargets[current][0] == -1) {
-						zombieTargets[current][1] = 0; // Reset target step count
-						zombieTargets[current][0] = aliveCells.get(0);
-						int closestDistance = bfs.distTo(zombieTargets[current][0]);
-
-						for (int i = 1; i < aliveCells.size(); i++) {
-							int currentCell = aliveCells.get(i);
-							int currentDistance = bfs.distTo(aliveCells.get(i));
-							if (currentDistance < closestDistance)
-								zombieTargets[current][0] = currentCell;
-						}
-					}
-					// Else keep current target and record that its been pursued while dead again.
-					else {
-						if (cells[zombieTargets[current][0]] == CellState.DEAD)
-							zombieTargets[current][1]++;
+				else if (counts.get(CellState.ALIVE) > 0) {
+					if (!searched) {
+						world.nearestSourceSearch(cell -> cells[cell] == CellState.ALIVE, distTo,
+						    bfsQueue);
+						searched = true;
 					}
 
-					// Get the next position.
-					var path = bfs.pathTo(zombieTargets[current][0]).iterator();
-					path.next();
-					int nextPosition = current;
-					if (path.hasNext())
-						nextPosition = path.next();
+					// Head for the nearest alive cell.
+					int nextPosition = world.downhill(current, distTo);
 
 					// Ensure zombie only moves into empty/dead space.
 					// if next position not empty, pick a random empty position or stay in place.
@@ -200,8 +138,8 @@ public class ZombieLife implements ILife {
 						ArrayList<Integer> availablePositions = new ArrayList<Integer>();
 						availablePositions.add(current);
 
-						var neighbors = world.adj(current);
-						for (int neighbor : neighbors) {
+						for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++) {
+							int neighbor = world.targets[n];
 							if (cells[neighbor] == CellState.DEAD)
 								availablePositions.add(neighbor);
 						}
@@ -218,14 +156,6 @@ public class ZombieLife implements ILife {
 
 						queue.enqueue(new Cell(oldRow, oldCol, CellState.DEAD));
 						queue.enqueue(new Cell(newRow, newCol, COLOR_1));
-
-						// Set new zombie target values
-						zombieTargets[convertToIndex(newRow,
-						    newCol)][0] = zombieTargets[current][0];
-						zombieTargets[convertToIndex(newRow,
-						    newCol)][1] = zombieTargets[current][1];
-						zombieTargets[current][0] = -1;
-						zombieTargets[current][1] = 0;
 					}
 					// If not moving, stay in place
 					else {
@@ -241,7 +171,8 @@ public class ZombieLife implements ILife {
 			else {
 				// Count amount of alive neighbors
 				int aliveNeighbors = 0;
-				for (int neighbor : world.adj(current)) {
+				for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++) {
+					int neighbor = world.targets[n];
 					if (cells[neighbor] == CellState.ALIVE)
 						aliveNeighbors++;
 
@@ -251,7 +182,8 @@ public class ZombieLife implements ILife {
 
 				// Check if there's a zombie neighbor
 				boolean zombieNeighbor = false;
-				for (int neighbor : world.adj(current)) {
+				for (int n = world.offsets[current]; n < world.offsets[current + 1]; n++) {
+					int neighbor = world.targets[n];
 					if (cells[neighbor] == COLOR_1)
 						zombieNeighbor = true;
 				}
@@ -263,8 +195,6 @@ public class ZombieLife implements ILife {
 				if (cells[current] == CellState.ALIVE) {
 					if (zombieNeighbor) {// If cell has a zombie neighbor, cell becomes a zombie.
 						queue.enqueue(new Cell(row, col, COLOR_1));
-						zombieTargets[current][0] = -1; // Reset target
-						zombieTargets[current][1] = 0; // Reset target step count
 					}
 					else if (aliveNeighbors < 2 || aliveNeighbors > 3) // Alive cells only stay
 					                                                   // alive if between 2-3
@@ -310,13 +240,21 @@ public class ZombieLife implements ILife {
 
 	@Override
 	public long populationCount() {
-		long count = 0;
+		return counts.get(CellState.ALIVE) + counts.get(COLOR_1);
+	}
 
-		for (var state : cells)
-			if (state == CellState.ALIVE || state == COLOR_1)
-				count++;
+	@Override
+	public long populationCount(CellState state) {
+		return counts.get(state);
+	}
 
-		return count;
+	/**
+	 * The number of zombies made by the last step is not part of the cells, so
+	 * setting cells back does not rewind it.
+	 */
+	@Override
+	public boolean isRewindable() {
+		return false;
 	}
 
 	/**